@@ -0,0 +1,130 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Entry points for the JMH benchmarks in weather.jmh. JMH does not accept benchmarks in the default package and
+ * a class in a named package cannot refer to the application classes, so the benchmarks reach the code they
+ * measure through the public static methods of this class. Every method works on the recorded responses in
+ * src/main/resources/fixtures, which are loaded once.
+ */
+public final class WeatherBenchmarkTargets {
+    private static final byte[] WEATHER_XML = fixture("weather.xml");
+    private static final byte[] WEATHER_JSON = fixture("weather.json");
+    private static final byte[] FORECAST_XML = fixture("forecast.xml");
+    private static final byte[] FORECAST_JSON = fixture("forecast.json");
+    private static final StaxParserEngine STAX = new StaxParserEngine();
+    private static final SaxParserEngine SAX = new SaxParserEngine();
+    private static final JsonParserEngine JSON = new JsonParserEngine();
+    private static final ForecastHandler PARSED_FORECAST = new ForecastHandler();
+    private static final WeatherTimeDate TIME_DATE = new WeatherTimeDate();
+    private static final CurrentConditions CURRENT;
+    private static final DailyForecast TODAY;
+    private static final DailyForecast TODAY_PLUS_ONE;
+    private static final DailyForecast TODAY_PLUS_TWO;
+    private static final long RECORDED_AT;
+
+    static {
+        try {
+            UserHandler userHandler = new UserHandler();
+            STAX.parse(new ByteArrayInputStream(WEATHER_XML), userHandler);
+            CURRENT = userHandler.readWeather();
+            RECORDED_AT = CURRENT.getLastUpdate();
+            STAX.parse(new ByteArrayInputStream(FORECAST_XML), PARSED_FORECAST);
+            DailyForecast[] days = PARSED_FORECAST.readWeather(RECORDED_AT);
+            TODAY = days[0];
+            TODAY_PLUS_ONE = days[1];
+            TODAY_PLUS_TWO = days[2];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private WeatherBenchmarkTargets() {
+    }
+
+    public static Object parseCurrentXmlStax() throws IOException {
+        UserHandler handler = new UserHandler();
+        STAX.parse(new ByteArrayInputStream(WEATHER_XML), handler);
+        return handler;
+    }
+
+    public static Object parseCurrentXmlSax() throws IOException {
+        UserHandler handler = new UserHandler();
+        SAX.parse(new ByteArrayInputStream(WEATHER_XML), handler);
+        return handler;
+    }
+
+    public static Object parseCurrentJson() throws IOException {
+        UserHandler handler = new UserHandler();
+        JSON.parse(new ByteArrayInputStream(WEATHER_JSON), handler);
+        return handler;
+    }
+
+    public static Object parseForecastXmlStax() throws IOException {
+        ForecastHandler handler = new ForecastHandler();
+        STAX.parse(new ByteArrayInputStream(FORECAST_XML), handler);
+        return handler;
+    }
+
+    public static Object parseForecastXmlSax() throws IOException {
+        ForecastHandler handler = new ForecastHandler();
+        SAX.parse(new ByteArrayInputStream(FORECAST_XML), handler);
+        return handler;
+    }
+
+    public static Object parseForecastJson() throws IOException {
+        ForecastHandler handler = new ForecastHandler();
+        JSON.parse(new ByteArrayInputStream(FORECAST_JSON), handler);
+        return handler;
+    }
+
+    /**
+     * Method aggregates the already parsed forecast as of the time the fixtures were recorded.
+     */
+    public static Object aggregateForecast() throws IOException {
+        return PARSED_FORECAST.readWeather(RECORDED_AT);
+    }
+
+    /**
+     * Method builds the text of the three weather panels, as WeatherInput does after every update.
+     */
+    public static Object formatWeatherText() {
+        return new String[] {
+                WeatherText.formatCurrent(CURRENT, TODAY),
+                WeatherText.formatForecastDay(TODAY_PLUS_ONE),
+                WeatherText.formatForecastDay(TODAY_PLUS_TWO)
+        };
+    }
+
+    /**
+     * Method builds the time and date labels of the GUI.
+     */
+    public static Object formatTimeDate() {
+        return new String[] {
+                TIME_DATE.getTimeDate(),
+                TIME_DATE.getDayOne(),
+                TIME_DATE.getDayTwo(),
+                TIME_DATE.getDayThree()
+        };
+    }
+
+    private static byte[] fixture(String name) {
+        try (InputStream in = WeatherBenchmarkTargets.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IOException("Missing fixture " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
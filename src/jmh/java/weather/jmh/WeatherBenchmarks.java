@@ -0,0 +1,93 @@
+package weather.jmh;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the parsing, aggregation and formatting hot paths on the recorded API responses. Each benchmark
+ * calls one method of WeatherBenchmarkTargets through a constant method handle, which the JIT compiles into a
+ * direct call. Run them with BenchmarkMain to get bytes allocated per operation next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WeatherBenchmarks {
+    private static final MethodHandle PARSE_CURRENT_XML_STAX = target("parseCurrentXmlStax");
+    private static final MethodHandle PARSE_CURRENT_XML_SAX = target("parseCurrentXmlSax");
+    private static final MethodHandle PARSE_CURRENT_JSON = target("parseCurrentJson");
+    private static final MethodHandle PARSE_FORECAST_XML_STAX = target("parseForecastXmlStax");
+    private static final MethodHandle PARSE_FORECAST_XML_SAX = target("parseForecastXmlSax");
+    private static final MethodHandle PARSE_FORECAST_JSON = target("parseForecastJson");
+    private static final MethodHandle AGGREGATE_FORECAST = target("aggregateForecast");
+    private static final MethodHandle FORMAT_WEATHER_TEXT = target("formatWeatherText");
+    private static final MethodHandle FORMAT_TIME_DATE = target("formatTimeDate");
+
+    @Benchmark
+    public Object parseCurrentXmlStax() throws Throwable {
+        return (Object) PARSE_CURRENT_XML_STAX.invokeExact();
+    }
+
+    @Benchmark
+    public Object parseCurrentXmlSax() throws Throwable {
+        return (Object) PARSE_CURRENT_XML_SAX.invokeExact();
+    }
+
+    @Benchmark
+    public Object parseCurrentJson() throws Throwable {
+        return (Object) PARSE_CURRENT_JSON.invokeExact();
+    }
+
+    @Benchmark
+    public Object parseForecastXmlStax() throws Throwable {
+        return (Object) PARSE_FORECAST_XML_STAX.invokeExact();
+    }
+
+    @Benchmark
+    public Object parseForecastXmlSax() throws Throwable {
+        return (Object) PARSE_FORECAST_XML_SAX.invokeExact();
+    }
+
+    @Benchmark
+    public Object parseForecastJson() throws Throwable {
+        return (Object) PARSE_FORECAST_JSON.invokeExact();
+    }
+
+    @Benchmark
+    public Object aggregateForecast() throws Throwable {
+        return (Object) AGGREGATE_FORECAST.invokeExact();
+    }
+
+    @Benchmark
+    public Object formatWeatherText() throws Throwable {
+        return (Object) FORMAT_WEATHER_TEXT.invokeExact();
+    }
+
+    @Benchmark
+    public Object formatTimeDate() throws Throwable {
+        return (Object) FORMAT_TIME_DATE.invokeExact();
+    }
+
+    private static MethodHandle target(String name) {
+        try {
+            return MethodHandles.publicLookup().findStatic(Class.forName("WeatherBenchmarkTargets"), name,
+                    MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class keeps every API call of the process within a budget per minute and per day, shared by all WeatherAPI
+ * instances, so batch jobs, the dashboard and the GUI together never get the key throttled. Only calls that go
+ * to the network pass through it, responses served from the cache are free.
+ *
+ * Each budget is a token bucket that holds a whole window's worth of calls and refills evenly over the window.
+ * A bucket is kept as the single time at which it will be full again, updated with compare-and-set, so taking
+ * a token never locks. The budgets are read from the current WeatherConfig on every call and follow a reload.
+ */
+final class ApiQuota implements ApiQuotaMBean {
+    private static final ApiQuota INSTANCE = new ApiQuota(ConfigService.getInstance());
+
+    private final ConfigService configService;
+    private final Bucket minute = new Bucket(TimeUnit.MINUTES.toNanos(1));
+    private final Bucket day = new Bucket(TimeUnit.DAYS.toNanos(1));
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+    private volatile boolean enabled = true;
+
+    /**
+     * Enum lists what a caller wants to happen when the budget is used up.
+     */
+    enum Mode {
+        /** Wait until the budget allows the call. */
+        BLOCK,
+        /** Fail with a QuotaExceededException. */
+        FAIL_FAST,
+        /** Use the cached response even if it has expired, fail if there is none. */
+        CACHED_FALLBACK
+    }
+
+    ApiQuota(ConfigService configService) {
+        this.configService = configService;
+        register();
+    }
+
+    /**
+     * Method returns the quota shared by the whole process.
+     */
+    static ApiQuota getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Method takes one call from both budgets.
+     * @param mode BLOCK waits for the budget, the other modes fail right away and leave the fallback to the caller.
+     * @throws QuotaExceededException if the budget is used up and the mode does not block.
+     * @throws InterruptedIOException if the caller was interrupted while waiting.
+     */
+    void acquire(Mode mode) throws QuotaExceededException, InterruptedIOException {
+        if (!enabled) {
+            return;
+        }
+        while (true) {
+            WeatherConfig config = configService.get();
+            long waitNanos = tryAcquire(config.getQuotaPerMinute(), config.getQuotaPerDay(), System.nanoTime());
+            if (waitNanos == 0) {
+                granted.increment();
+                return;
+            }
+            if (mode != Mode.BLOCK) {
+                rejected.increment();
+                throw new QuotaExceededException("API call budget used up",
+                        TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1);
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the API call budget");
+            }
+            blockedNanos.add(waitNanos);
+        }
+    }
+
+    /**
+     * Method turns the quota on or off, off is meant for load tests against the stand-in server.
+     */
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Method takes a token from the minute bucket and then from the day bucket. If the day bucket is empty the
+     * minute token is given back, so a rejected call costs nothing.
+     * @return 0 if the call may be made, otherwise the time until the budgets allow it in nanoseconds.
+     */
+    private long tryAcquire(int perMinute, int perDay, long now) {
+        long wait = minute.tryAcquire(perMinute, now);
+        if (wait > 0) {
+            return wait;
+        }
+        wait = day.tryAcquire(perDay, now);
+        if (wait > 0) {
+            minute.release(perMinute);
+        }
+        return wait;
+    }
+
+    @Override
+    public int getMinuteBudget() {
+        return configService.get().getQuotaPerMinute();
+    }
+
+    @Override
+    public int getMinuteUsed() {
+        return minute.used(getMinuteBudget(), System.nanoTime());
+    }
+
+    @Override
+    public int getDayBudget() {
+        return configService.get().getQuotaPerDay();
+    }
+
+    @Override
+    public int getDayUsed() {
+        return day.used(getDayBudget(), System.nanoTime());
+    }
+
+    @Override
+    public long getGrantedCount() {
+        return granted.sum();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getBlockedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(blockedNanos.sum());
+    }
+
+    /**
+     * Method registers the quota with the platform MBean server. The quota still works if registration fails.
+     */
+    private void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("WeatherApp:type=Quota"));
+        } catch (InstanceAlreadyExistsException e) {
+            // the first registration stays visible
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Class is a token bucket with room for a budget of calls per window. Instead of a token count it keeps the
+     * time at which the bucket is full again: every call moves that time one interval, window / budget, further
+     * into the future, and a call is allowed as long as the time stays within one window of now.
+     */
+    private static final class Bucket {
+        private final long windowNanos;
+        private final AtomicLong fullAt;
+
+        Bucket(long windowNanos) {
+            this.windowNanos = windowNanos;
+            fullAt = new AtomicLong(System.nanoTime());
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise the time until the next token in nanoseconds.
+         */
+        long tryAcquire(int budget, long now) {
+            long interval = windowNanos / budget;
+            while (true) {
+                long current = fullAt.get();
+                long from = current - now > 0 ? current : now;
+                long next = from + interval;
+                long wait = next - now - windowNanos;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        void release(int budget) {
+            fullAt.addAndGet(-(windowNanos / budget));
+        }
+
+        /**
+         * Method returns the number of tokens missing from the bucket.
+         */
+        int used(int budget, long now) {
+            long backlog = fullAt.get() - now;
+            if (backlog <= 0) {
+                return 0;
+            }
+            long interval = windowNanos / budget;
+            return (int) Math.min(budget, (backlog + interval - 1) / interval);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * JMX view of the API call budget of ApiQuota, registered as "WeatherApp:type=Quota".
+ */
+public interface ApiQuotaMBean {
+    int getMinuteBudget();
+
+    int getMinuteUsed();
+
+    int getDayBudget();
+
+    int getDayUsed();
+
+    long getGrantedCount();
+
+    long getRejectedCount();
+
+    long getBlockedMillis();
+}
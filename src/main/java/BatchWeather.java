@@ -0,0 +1,318 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless entry point that fetches the weather for a list of zip codes without starting the GUI.
+ *
+ * Zip codes are read one per line from a file, or from stdin when the input is "-", and are fetched with a
+ * bounded number of requests in flight. Each result is written as a CSV line as soon as it finishes. Zip codes
+ * are appended to a checkpoint file once their line has been written, failed ones marked as failed, so a run that
+ * is stopped can be started again with the same arguments and only fetches the remaining zip codes. Every zip
+ * code has exactly one line in the output. With --retry-failed a resumed run fetches the failed zip codes again
+ * and first removes their error lines from the output file. Calls wait for the process-wide ApiQuota, so a large
+ * batch paces itself to the configured budget.
+ *
+ * Usage: BatchWeather --input zips.txt [--output results.csv] [--checkpoint zips.done] [--retry-failed]
+ *                     [--country us] [--concurrency n] [--virtual-threads]
+ */
+public class BatchWeather {
+    private static final int PROGRESS_INTERVAL = 1000;
+    private static final String FAILED_MARK = "\tfailed";
+    private final String countryCode;
+    private final int concurrency;
+    private final boolean virtualThreads;
+    private final boolean retryFailed;
+    private final Set<String> completed = new HashSet<>();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong done = new AtomicLong();
+    private Writer output;
+    private Writer checkpoint;
+    private long startNanos;
+
+    BatchWeather(String countryCode, int concurrency, boolean virtualThreads, boolean retryFailed) {
+        this.countryCode = countryCode;
+        this.concurrency = concurrency;
+        this.virtualThreads = virtualThreads;
+        this.retryFailed = retryFailed;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String input = null, outputFile = null, checkpointFile = null, country = "us";
+        int concurrency = ConfigService.getInstance().get().getBatchConcurrency();
+        boolean virtualThreads = false, retryFailed = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--input":
+                    input = args[++i];
+                    break;
+                case "--output":
+                    outputFile = args[++i];
+                    break;
+                case "--checkpoint":
+                    checkpointFile = args[++i];
+                    break;
+                case "--retry-failed":
+                    retryFailed = true;
+                    break;
+                case "--country":
+                    country = args[++i];
+                    break;
+                case "--concurrency":
+                    concurrency = Integer.parseInt(args[++i]);
+                    break;
+                case "--virtual-threads":
+                    virtualThreads = true;
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (input == null || concurrency < 1) {
+            System.err.println("Usage: BatchWeather --input <file|-> [--output <file>] [--checkpoint <file>]"
+                    + " [--retry-failed] [--country <code>] [--concurrency <n>] [--virtual-threads]");
+            System.exit(2);
+        }
+
+        BatchWeather batch = new BatchWeather(country, concurrency, virtualThreads, retryFailed);
+        try (BufferedReader zips = new BufferedReader(new InputStreamReader(
+                "-".equals(input) ? System.in : new FileInputStream(input), StandardCharsets.UTF_8))) {
+            batch.run(zips, outputFile, checkpointFile);
+        }
+    }
+
+    /**
+     * Method streams the zip codes from the reader and fetches each one that has not been completed by an
+     * earlier run. A permit is taken before every submission so no more than the concurrency limit is in
+     * flight, and the input is never read further ahead than that.
+     */
+    void run(BufferedReader zips, String outputFile, String checkpointFile) throws IOException, InterruptedException {
+        if (checkpointFile != null) {
+            Path checkpointPath = Paths.get(checkpointFile);
+            if (Files.exists(checkpointPath)) {
+                Set<String> failedBefore = new HashSet<>();
+                for (String line : Files.readAllLines(checkpointPath, StandardCharsets.UTF_8)) {
+                    if (line.endsWith(FAILED_MARK)) {
+                        failedBefore.add(line.substring(0, line.length() - FAILED_MARK.length()));
+                    } else if (!line.isEmpty()) {
+                        completed.add(line);
+                    }
+                }
+                // a zip code that failed and later succeeded is done
+                failedBefore.removeAll(completed);
+                System.err.println("Resuming, " + completed.size() + " zip codes already fetched, "
+                        + failedBefore.size() + " failed");
+                if (retryFailed) {
+                    if (outputFile != null && !failedBefore.isEmpty()) {
+                        removeLines(Paths.get(outputFile), failedBefore);
+                    }
+                } else {
+                    completed.addAll(failedBefore);
+                }
+            }
+            checkpoint = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(checkpointFile, true), StandardCharsets.UTF_8));
+        }
+        boolean resumed = !completed.isEmpty();
+        output = new BufferedWriter(new OutputStreamWriter(outputFile == null ? System.out
+                : new FileOutputStream(outputFile, resumed), StandardCharsets.UTF_8));
+        if (!resumed) {
+            output.write("zip,country,city,temperature,humidity,pressure,weather,"
+                    + "maxTempTomorrow,minTempTomorrow,error\n");
+        }
+
+        ExecutorService executor = createExecutor();
+        Semaphore permits = new Semaphore(concurrency);
+        Set<String> submitted = new HashSet<>();
+        long skipped = 0;
+        startNanos = System.nanoTime();
+        try {
+            String line;
+            while ((line = zips.readLine()) != null) {
+                String zip = line.trim();
+                if (zip.isEmpty() || zip.startsWith("#")) {
+                    continue;
+                }
+                if (completed.contains(zip) || !submitted.add(zip)) {
+                    skipped++;
+                    continue;
+                }
+                permits.acquire();
+                executor.execute(() -> {
+                    try {
+                        fetch(zip);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            permits.acquire(concurrency);
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            output.flush();
+            if (checkpoint != null) {
+                checkpoint.close();
+            }
+        }
+        report(skipped);
+    }
+
+    /**
+     * Method fetches one zip code, records its latency and writes its result line.
+     */
+    private void fetch(String zip) {
+        WeatherAPI weatherAPI = new WeatherAPI();
+        weatherAPI.setZipCode(zip);
+        weatherAPI.setCountryCode(countryCode);
+        long start = System.nanoTime();
+        String error = null;
+        try {
+            weatherAPI.refresh();
+        } catch (Exception e) {
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+        latencies.record(System.nanoTime() - start);
+
+        StringBuilder line = new StringBuilder(128);
+        line.append(csv(zip)).append(',').append(csv(countryCode)).append(',');
+        if (error == null) {
+            line.append(csv(weatherAPI.getCityName())).append(',')
+                    .append(weatherAPI.getTemperature()).append(',')
+                    .append(weatherAPI.getHumidity()).append(',')
+                    .append(weatherAPI.getPressure()).append(',')
+                    .append(csv(weatherAPI.getWeatherName())).append(',')
+                    // empty when the forecast does not reach tomorrow
+                    .append(csv(weatherAPI.getMaxTempTodayPlusOne())).append(',')
+                    .append(csv(weatherAPI.getMinTempTodayPlusOne())).append(',');
+        } else {
+            line.append(",,,,,,,").append(csv(error));
+        }
+        line.append('\n');
+        write(zip, line.toString(), error == null);
+    }
+
+    /**
+     * Method writes a result line and records the zip code in the checkpoint, marked if the fetch failed. The
+     * output is flushed before the checkpoint so a resumed run never skips a zip code whose result was lost.
+     */
+    private synchronized void write(String zip, String line, boolean success) {
+        try {
+            output.write(line);
+            if (checkpoint != null) {
+                output.flush();
+                checkpoint.write(zip);
+                if (!success) {
+                    checkpoint.write(FAILED_MARK);
+                }
+                checkpoint.write('\n');
+                checkpoint.flush();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        (success ? succeeded : failed).incrementAndGet();
+        long count = done.incrementAndGet();
+        if (count % PROGRESS_INTERVAL == 0) {
+            System.err.printf("%d fetched, %.1f zips/s%n", count, throughput(count));
+        }
+    }
+
+    /**
+     * Method removes the lines of the given zip codes from an earlier output file, so zip codes fetched again
+     * do not get a second line. The file is rewritten next to itself and moved into place.
+     */
+    private static void removeLines(Path outputPath, Set<String> zips) throws IOException {
+        if (!Files.exists(outputPath)) {
+            return;
+        }
+        Path temporary = outputPath.resolveSibling(outputPath.getFileName() + ".tmp");
+        try (BufferedReader reader = Files.newBufferedReader(outputPath, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comma = line.indexOf(',');
+                // zip codes never contain a comma, so the first field is never quoted
+                if (comma < 0 || !zips.contains(line.substring(0, comma))) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        }
+        Files.move(temporary, outputPath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Method prints the totals, throughput and latency percentiles of the run to stderr.
+     */
+    private void report(long skipped) {
+        long done = this.done.get();
+        System.err.printf("Fetched %d zip codes (%d failed, %d skipped) in %.1f s, %.1f zips/s%n",
+                done, failed.get(), skipped, (System.nanoTime() - startNanos) / 1e9, throughput(done));
+        System.err.printf("Latency ms: mean %.1f  p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                latencies.getMean(TimeUnit.MILLISECONDS),
+                latencies.getPercentile(50, TimeUnit.MILLISECONDS),
+                latencies.getPercentile(90, TimeUnit.MILLISECONDS),
+                latencies.getPercentile(99, TimeUnit.MILLISECONDS),
+                latencies.getPercentile(99.9, TimeUnit.MILLISECONDS),
+                latencies.getMax(TimeUnit.MILLISECONDS));
+        System.err.printf("Coalesced endpoint calls: %d%n", WeatherAPI.getCoalescedRequestCount());
+        ApiQuota quota = ApiQuota.getInstance();
+        System.err.printf("API calls: %d, %.1f s waited for the quota of %d a minute and %d a day%n",
+                quota.getGrantedCount(), quota.getBlockedMillis() / 1e3, quota.getMinuteBudget(),
+                quota.getDayBudget());
+    }
+
+    private double throughput(long done) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds > 0 ? done / seconds : 0;
+    }
+
+    /**
+     * Method creates the executor that runs the fetches. Virtual threads are used when requested and the
+     * running JDK provides them, they are looked up reflectively so the application still builds for Java 8.
+     */
+    private ExecutorService createExecutor() {
+        if (virtualThreads) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.err.println("Virtual threads are not available on this JDK, using platform threads");
+            }
+        }
+        return Executors.newFixedThreadPool(concurrency);
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
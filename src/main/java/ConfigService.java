@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Class loads the application settings from a properties file once and keeps the current WeatherConfig in an
+ * atomic reference, so reading a setting is a single volatile read. The directory of the file is watched and
+ * a changed file is loaded and swapped in as a whole, for example to rotate the API key of a running process.
+ * If the changed file cannot be read or holds invalid values the previous settings stay in use.
+ *
+ * The file is "Data.properties" in the working directory, falling back to the older "Test.properties" when
+ * only that exists, and can be changed with the "weather.config" system property.
+ */
+final class ConfigService {
+    private static final long SETTLE_MILLIS = 200;
+    private static final ConfigService INSTANCE = new ConfigService(defaultPath());
+
+    private final Path file;
+    private final AtomicReference<WeatherConfig> config = new AtomicReference<>();
+
+    ConfigService(Path file) {
+        this.file = file.toAbsolutePath();
+        try {
+            config.set(load());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Cannot load " + this.file + ", using default settings: " + e.getMessage());
+            config.set(WeatherConfig.defaults());
+        }
+        watch();
+    }
+
+    /**
+     * Method returns the settings service of the application.
+     */
+    static ConfigService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Method returns the current settings. Callers should read them once per operation so that all values they
+     * use come from the same version.
+     */
+    WeatherConfig get() {
+        return config.get();
+    }
+
+    /**
+     * Method loads the file again and publishes the new settings.
+     * @return True if the settings were replaced, false if the file could not be loaded.
+     */
+    boolean reload() {
+        try {
+            config.set(load());
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Keeping previous settings, cannot load " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private WeatherConfig load() throws IOException {
+        if (!Files.exists(file)) {
+            throw new NoSuchFileException(file.toString());
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        return WeatherConfig.fromProperties(properties);
+    }
+
+    /**
+     * Method starts a daemon thread that reloads the settings whenever the file is created or modified.
+     */
+    private void watch() {
+        Path directory = file.getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return;
+        }
+        WatchService watcher;
+        try {
+            watcher = directory.getFileSystem().newWatchService();
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watcher.take();
+                    boolean changed = false;
+                    // an editor usually truncates and writes in several steps, wait until the events stop
+                    while (key != null) {
+                        for (WatchEvent<?> event : key.pollEvents()) {
+                            if (file.getFileName().equals(event.context())) {
+                                changed = true;
+                            }
+                        }
+                        if (!key.reset()) {
+                            return;
+                        }
+                        key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                    }
+                    if (changed && hasContent()) {
+                        reload();
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // stop watching
+            }
+        }, "config-watch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private boolean hasContent() {
+        try {
+            return Files.size(file) > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static Path defaultPath() {
+        String configured = System.getProperty("weather.config");
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        Path data = Paths.get("Data.properties");
+        Path test = Paths.get("Test.properties");
+        return !Files.exists(data) && Files.exists(test) ? test : data;
+    }
+}
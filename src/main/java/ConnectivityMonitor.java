@@ -0,0 +1,110 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Class keeps track of whether the API host can be reached. A probe opens a TCP connection to the host inside
+ * the JVM instead of starting a ping process. The result is cached for a short window and callers only read a
+ * volatile flag, a stale result is re-probed in the background. While the host is unreachable it is re-probed
+ * in the background with an exponential backoff until it comes back.
+ */
+class ConnectivityMonitor {
+    private static final long RESULT_WINDOW_MILLIS = 30_000;
+    private static final long MIN_BACKOFF_MILLIS = 1_000;
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+    private static final int PROBE_TIMEOUT_MILLIS = 2_000;
+    private static final ConcurrentHashMap<String, ConnectivityMonitor> monitors = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "connectivity-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String host;
+    private final int port;
+    private final AtomicBoolean probeScheduled = new AtomicBoolean();
+    private volatile boolean online;
+    private volatile long lastProbeMillis;
+    private long backoffMillis = MIN_BACKOFF_MILLIS;
+
+    private ConnectivityMonitor(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Method returns the shared monitor for a host so that every WeatherAPI instance reuses the same result.
+     * @param host Host name of the API.
+     * @param port Port the API is served on.
+     */
+    static ConnectivityMonitor forHost(String host, int port) {
+        return monitors.computeIfAbsent(host + ":" + port, key -> new ConnectivityMonitor(host, port));
+    }
+
+    /**
+     * Method returns whether the host was reachable at the last probe. Only the very first call waits for a
+     * probe, later calls return immediately and start a background probe when the result has gone stale.
+     */
+    boolean isOnline() {
+        if (lastProbeMillis == 0) {
+            probeOnce();
+        } else if (online && System.currentTimeMillis() - lastProbeMillis > RESULT_WINDOW_MILLIS) {
+            scheduleProbe(0);
+        }
+        return online;
+    }
+
+    /**
+     * Method marks the host as unreachable after a request failed to connect, so that following refreshes
+     * fail fast while the background probe waits for the host to return.
+     */
+    void reportFailure() {
+        online = false;
+        lastProbeMillis = System.currentTimeMillis();
+        scheduleProbe(MIN_BACKOFF_MILLIS);
+    }
+
+    private synchronized void probeOnce() {
+        if (lastProbeMillis == 0) {
+            probe();
+        }
+    }
+
+    private void scheduleProbe(long delayMillis) {
+        if (probeScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> {
+                probeScheduled.set(false);
+                probe();
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Method opens and closes a connection to the host and stores the result. When the host cannot be reached
+     * the next probe is scheduled, doubling the delay each time up to one minute.
+     */
+    private synchronized void probe() {
+        boolean reachable;
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), PROBE_TIMEOUT_MILLIS);
+            reachable = true;
+        } catch (IOException e) {
+            reachable = false;
+        }
+        online = reachable;
+        lastProbeMillis = System.currentTimeMillis();
+
+        if (reachable) {
+            backoffMillis = MIN_BACKOFF_MILLIS;
+        } else {
+            long delay = backoffMillis;
+            backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+            scheduleProbe(delay);
+        }
+    }
+}
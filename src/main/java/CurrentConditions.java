@@ -0,0 +1,132 @@
+/**
+ * Class holds the current weather of a location as read from the /weather endpoint. Instances are immutable
+ * and keep every value as a primitive, times are epoch seconds in UTC.
+ */
+public final class CurrentConditions {
+    private final int cityId;
+    private final String cityName;
+    private final String countryCode;
+    private final float latitude;
+    private final float longitude;
+    private final int timezoneOffset;
+    private final long sunrise;
+    private final long sunset;
+    private final float temperature;
+    private final float minTemperature;
+    private final float maxTemperature;
+    private final float feelsLike;
+    private final int humidity;
+    private final int pressure;
+    private final float windSpeed;
+    private final int cloudiness;
+    private final int visibility;
+    private final WeatherCondition condition;
+    private final long lastUpdate;
+
+    CurrentConditions(int cityId, String cityName, String countryCode, float latitude, float longitude,
+                      int timezoneOffset, long sunrise, long sunset, float temperature, float minTemperature,
+                      float maxTemperature, float feelsLike, int humidity, int pressure, float windSpeed,
+                      int cloudiness, int visibility, WeatherCondition condition, long lastUpdate) {
+        this.cityId = cityId;
+        this.cityName = cityName;
+        this.countryCode = countryCode;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.timezoneOffset = timezoneOffset;
+        this.sunrise = sunrise;
+        this.sunset = sunset;
+        this.temperature = temperature;
+        this.minTemperature = minTemperature;
+        this.maxTemperature = maxTemperature;
+        this.feelsLike = feelsLike;
+        this.humidity = humidity;
+        this.pressure = pressure;
+        this.windSpeed = windSpeed;
+        this.cloudiness = cloudiness;
+        this.visibility = visibility;
+        this.condition = condition;
+        this.lastUpdate = lastUpdate;
+    }
+
+    public int getCityId() {
+        return cityId;
+    }
+
+    public String getCityName() {
+        return cityName;
+    }
+
+    public String getCountryCode() {
+        return countryCode;
+    }
+
+    public float getLatitude() {
+        return latitude;
+    }
+
+    public float getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Method returns the offset of the location from UTC in seconds.
+     */
+    public int getTimezoneOffset() {
+        return timezoneOffset;
+    }
+
+    public long getSunrise() {
+        return sunrise;
+    }
+
+    public long getSunset() {
+        return sunset;
+    }
+
+    public float getTemperature() {
+        return temperature;
+    }
+
+    public float getMinTemperature() {
+        return minTemperature;
+    }
+
+    public float getMaxTemperature() {
+        return maxTemperature;
+    }
+
+    public float getFeelsLike() {
+        return feelsLike;
+    }
+
+    public int getHumidity() {
+        return humidity;
+    }
+
+    public int getPressure() {
+        return pressure;
+    }
+
+    public float getWindSpeed() {
+        return windSpeed;
+    }
+
+    public int getCloudiness() {
+        return cloudiness;
+    }
+
+    public int getVisibility() {
+        return visibility;
+    }
+
+    public WeatherCondition getCondition() {
+        return condition;
+    }
+
+    /**
+     * Method returns the time the API last updated the observation, in epoch seconds.
+     */
+    public long getLastUpdate() {
+        return lastUpdate;
+    }
+}
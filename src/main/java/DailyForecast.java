@@ -0,0 +1,66 @@
+/**
+ * Class holds the forecast summary of one local calendar day of a location. Instances are immutable.
+ */
+public final class DailyForecast {
+    private final long epochDay;
+    private final float minTemperature;
+    private final float maxTemperature;
+    private final float precipitationChance;
+    private final int humidity;
+    private final int pressure;
+    private final WeatherCondition condition;
+
+    DailyForecast(long epochDay, float minTemperature, float maxTemperature, float precipitationChance,
+                  int humidity, int pressure, WeatherCondition condition) {
+        this.epochDay = epochDay;
+        this.minTemperature = minTemperature;
+        this.maxTemperature = maxTemperature;
+        this.precipitationChance = precipitationChance;
+        this.humidity = humidity;
+        this.pressure = pressure;
+        this.condition = condition;
+    }
+
+    /**
+     * Method returns the local date of the day as the number of days since 1970-01-01.
+     */
+    public long getEpochDay() {
+        return epochDay;
+    }
+
+    public float getMinTemperature() {
+        return minTemperature;
+    }
+
+    public float getMaxTemperature() {
+        return maxTemperature;
+    }
+
+    /**
+     * Method returns the highest probability of precipitation of the day, between 0 and 1.
+     */
+    public float getPrecipitationChance() {
+        return precipitationChance;
+    }
+
+    /**
+     * Method returns the highest humidity of the day in percent.
+     */
+    public int getHumidity() {
+        return humidity;
+    }
+
+    /**
+     * Method returns the highest pressure of the day in hPa.
+     */
+    public int getPressure() {
+        return pressure;
+    }
+
+    /**
+     * Method returns the condition seen in most forecast slots of the day.
+     */
+    public WeatherCondition getCondition() {
+        return condition;
+    }
+}
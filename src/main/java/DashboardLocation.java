@@ -0,0 +1,149 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class holds one saved location of the dashboard and the latest weather shown for it. The text and condition of the
+ * tile are prepared on the refresh thread and published together as one immutable State, so a tile that scrolls
+ * into view only has to read them. A location that is not visible holds no JavaFX nodes, only its State.
+ */
+final class DashboardLocation {
+    private final String zipCode;
+    private final String countryCode;
+    private final String name;
+    private volatile State state;
+
+    /**
+     * Class holds what a tile shows for a location at one point in time.
+     */
+    static final class State {
+        private final WeatherSnapshot snapshot;
+        private final String title;
+        private final String summary;
+        private final WeatherCondition condition;
+        private final boolean failed;
+
+        State(WeatherSnapshot snapshot, String title, String summary, WeatherCondition condition, boolean failed) {
+            this.snapshot = snapshot;
+            this.title = title;
+            this.summary = summary;
+            this.condition = condition;
+            this.failed = failed;
+        }
+
+        /**
+         * Method returns the last weather fetched, or null if no refresh has succeeded yet.
+         */
+        WeatherSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        String getTitle() {
+            return title;
+        }
+
+        String getSummary() {
+            return summary;
+        }
+
+        /**
+         * Method returns the current condition, or null before the first successful refresh.
+         */
+        WeatherCondition getCondition() {
+            return condition;
+        }
+
+        /**
+         * Method returns true if the last refresh failed, the previous weather is still shown.
+         */
+        boolean isFailed() {
+            return failed;
+        }
+    }
+
+    DashboardLocation(String zipCode, String countryCode, String name) {
+        this.zipCode = zipCode;
+        this.countryCode = countryCode;
+        this.name = name;
+        state = new State(null, title(null), "Waiting for first update", null, false);
+    }
+
+    /**
+     * Method reads the saved locations, one per line as "zip[,country[,name]]". Empty lines and lines
+     * starting with "#" are skipped and the country defaults to "us".
+     * @throws IOException if the file cannot be read or a line has no zip code.
+     */
+    static List<DashboardLocation> load(Path file) throws IOException {
+        List<DashboardLocation> locations = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",", 3);
+                String zip = fields[0].trim();
+                if (zip.isEmpty()) {
+                    throw new IOException(file + " line " + lineNumber + " has no zip code");
+                }
+                String country = fields.length > 1 && !fields[1].trim().isEmpty() ? fields[1].trim() : "us";
+                String name = fields.length > 2 && !fields[2].trim().isEmpty() ? fields[2].trim() : null;
+                locations.add(new DashboardLocation(zip, country, name));
+            }
+        }
+        return locations;
+    }
+
+    String getZipCode() {
+        return zipCode;
+    }
+
+    String getCountryCode() {
+        return countryCode;
+    }
+
+    State getState() {
+        return state;
+    }
+
+    /**
+     * Method publishes the weather of a successful refresh.
+     */
+    void update(WeatherSnapshot snapshot) {
+        CurrentConditions current = snapshot.getCurrent();
+        DailyForecast today = snapshot.getForecastForDay(0, System.currentTimeMillis() / 1000);
+        StringBuilder summary = new StringBuilder(96)
+                .append(current.getTemperature()).append("\u00B0  ")
+                .append(current.getCondition().getDisplayName());
+        if (today != null) {
+            summary.append("  High ").append(today.getMaxTemperature()).append("\u00B0")
+                    .append("  Low ").append(today.getMinTemperature()).append("\u00B0")
+                    .append("  Precipitation ").append(WeatherText.formatPrecipitation(today));
+        }
+        summary.append("  Humidity ").append(current.getHumidity()).append("\u0025");
+        state = new State(snapshot, title(current.getCityName()), summary.toString(),
+                current.getCondition(), false);
+    }
+
+    /**
+     * Method records a failed refresh, the last weather stays available.
+     */
+    void failed(String message) {
+        State previous = state;
+        state = new State(previous.snapshot, previous.title, "Update failed: " + message
+                + (previous.snapshot == null ? "" : ", showing earlier data"), previous.condition, true);
+    }
+
+    private String title(String cityName) {
+        String label = name != null ? name : cityName;
+        return label == null ? zipCode + ", " + countryCode.toUpperCase()
+                : label + " (" + zipCode + ", " + countryCode.toUpperCase() + ")";
+    }
+}
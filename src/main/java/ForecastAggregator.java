@@ -0,0 +1,171 @@
+import java.util.Arrays;
+
+/**
+ * Class summarizes the 3 hour forecast slots into one set of values per local calendar day of the location.
+ * All slots are visited once and the results are kept in primitive arrays indexed by day, day 0 is the current
+ * local date of the location. Up to 40 slots, the 5 day maximum of the API, can span 6 calendar days.
+ */
+class ForecastAggregator {
+    static final int MAX_DAYS = 6;
+    private static final int SECONDS_PER_DAY = 86_400;
+    private static final int CONDITIONS = WeatherCondition.UNKNOWN.ordinal();
+
+    private final int[] slotCount = new int[MAX_DAYS];
+    private final float[] minTemperature = new float[MAX_DAYS];
+    private final float[] maxTemperature = new float[MAX_DAYS];
+    private final float[] maxPrecipitation = new float[MAX_DAYS];
+    private final float[] maxHumidity = new float[MAX_DAYS];
+    private final float[] maxPressure = new float[MAX_DAYS];
+    private final int[] conditionCounts = new int[MAX_DAYS * CONDITIONS];
+    private long today;
+
+    /**
+     * Method aggregates the forecast slots by local day.
+     * @param epochSeconds Start time of each slot in epoch seconds.
+     * @param temperature Temperature of each slot.
+     * @param precipitation Probability of precipitation of each slot, between 0 and 1.
+     * @param humidity Humidity of each slot.
+     * @param pressure Pressure of each slot.
+     * @param weatherNumber Open Weather Map condition code of each slot.
+     * @param count Number of slots in the arrays.
+     * @param timezoneOffsetSeconds Offset of the location from UTC, used to find the local day of each slot.
+     * @param nowEpochSeconds Current time, its local date becomes day 0.
+     */
+    void aggregate(long[] epochSeconds, float[] temperature, float[] precipitation, float[] humidity,
+                   float[] pressure, int[] weatherNumber, int count, int timezoneOffsetSeconds, long nowEpochSeconds) {
+        for (int day = 0; day < MAX_DAYS; day++) {
+            slotCount[day] = 0;
+            minTemperature[day] = Float.POSITIVE_INFINITY;
+            maxTemperature[day] = Float.NEGATIVE_INFINITY;
+            maxPrecipitation[day] = 0;
+            maxHumidity[day] = 0;
+            maxPressure[day] = 0;
+        }
+        Arrays.fill(conditionCounts, 0);
+        today = Math.floorDiv(nowEpochSeconds + timezoneOffsetSeconds, SECONDS_PER_DAY);
+
+        for (int i = 0; i < count; i++) {
+            long day = Math.floorDiv(epochSeconds[i] + timezoneOffsetSeconds, SECONDS_PER_DAY) - today;
+            if (day < 0 || day >= MAX_DAYS) {
+                continue;
+            }
+            int d = (int) day;
+            slotCount[d]++;
+            minTemperature[d] = Math.min(minTemperature[d], temperature[i]);
+            maxTemperature[d] = Math.max(maxTemperature[d], temperature[i]);
+            maxPrecipitation[d] = Math.max(maxPrecipitation[d], precipitation[i]);
+            maxHumidity[d] = Math.max(maxHumidity[d], humidity[i]);
+            maxPressure[d] = Math.max(maxPressure[d], pressure[i]);
+            WeatherCondition condition = WeatherCondition.fromCode(weatherNumber[i]);
+            if (condition != WeatherCondition.UNKNOWN) {
+                conditionCounts[d * CONDITIONS + condition.ordinal()]++;
+            }
+        }
+    }
+
+    /**
+     * Method returns the number of forecast slots that fall on a day, 0 if the forecast does not reach it.
+     */
+    int getSlotCount(int day) {
+        return slotCount[day];
+    }
+
+    float getMinTemperature(int day) {
+        return minTemperature[day];
+    }
+
+    float getMaxTemperature(int day) {
+        return maxTemperature[day];
+    }
+
+    float getMaxPrecipitation(int day) {
+        return maxPrecipitation[day];
+    }
+
+    float getMaxHumidity(int day) {
+        return maxHumidity[day];
+    }
+
+    float getMaxPressure(int day) {
+        return maxPressure[day];
+    }
+
+    /**
+     * Method returns the condition group seen in the most slots of a day, ties go to the more severe group.
+     * @return The dominant condition, or UNKNOWN if no slot of the day had a known condition.
+     */
+    WeatherCondition getDominantCondition(int day) {
+        int dominant = CONDITIONS, most = 0;
+        for (int condition = 0; condition < CONDITIONS; condition++) {
+            int seen = conditionCounts[day * CONDITIONS + condition];
+            if (seen > most) {
+                most = seen;
+                dominant = condition;
+            }
+        }
+        return WeatherCondition.fromOrdinal(dominant);
+    }
+
+    /**
+     * Method returns the local date of a day as the number of days since 1970-01-01.
+     */
+    long getEpochDay(int day) {
+        return today + day;
+    }
+
+    /**
+     * Method returns an immutable summary for every day that has at least one forecast slot, in date order.
+     */
+    DailyForecast[] toDailyForecasts() {
+        int covered = 0;
+        for (int day = 0; day < MAX_DAYS; day++) {
+            if (slotCount[day] > 0) {
+                covered++;
+            }
+        }
+        DailyForecast[] days = new DailyForecast[covered];
+        int index = 0;
+        for (int day = 0; day < MAX_DAYS; day++) {
+            if (slotCount[day] > 0) {
+                days[index++] = new DailyForecast(getEpochDay(day), minTemperature[day], maxTemperature[day],
+                        maxPrecipitation[day], (int) maxHumidity[day], (int) maxPressure[day],
+                        getDominantCondition(day));
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Method converts an ISO local date time in UTC, as found in the "from" attribute of the forecast, to
+     * epoch seconds without creating any objects. Only the "yyyy-MM-ddTHH:mm:ss" form sent by the API is read.
+     */
+    static long isoToEpochSeconds(CharSequence iso) {
+        int year = digits(iso, 0, 4);
+        int month = digits(iso, 5, 2);
+        int day = digits(iso, 8, 2);
+        int hour = digits(iso, 11, 2);
+        int minute = digits(iso, 14, 2);
+        int second = iso.length() >= 19 ? digits(iso, 17, 2) : 0;
+
+        // days from 1970-01-01 for the proleptic Gregorian calendar, counting years from March
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long epochDay = (long) era * 146_097 + dayOfEra - 719_468;
+        return epochDay * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second;
+    }
+
+    private static int digits(CharSequence text, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Invalid date time: " + text);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
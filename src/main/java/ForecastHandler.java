@@ -0,0 +1,181 @@
+import java.io.IOException;
+
+/**
+ * Class reads the XML data stream, for the current day plus one and the current day plus
+ * two, from the parser engine. Each slot is converted to primitive values once while it is read and
+ * the slots are summarized per local day by the ForecastAggregator.
+ */
+class ForecastHandler implements WeatherXmlHandler, WeatherJsonHandler {
+    static final int MAX_SLOTS = 40;
+    private final ForecastAggregator aggregator = new ForecastAggregator();
+    // One spare slot at the end absorbs the values of any slot beyond MAX_SLOTS
+    private final long[] timeDate = new long[MAX_SLOTS + 1];
+    private final float[] temperature = new float[MAX_SLOTS + 1];
+    private final float[] humidity = new float[MAX_SLOTS + 1];
+    private final float[] pressure = new float[MAX_SLOTS + 1];
+    private final float[] precipitation = new float[MAX_SLOTS + 1];
+    private final int[] weatherNumber = new int[MAX_SLOTS + 1];
+    private int incremental = 0;
+    private int timezoneOffset;
+    private boolean hasTimezone;
+
+    /**
+     * Method looks for specific element names in an XML document and then stores their associated values.
+     * @param name The element name.
+     * @param attributes The attributes attached to the element.
+     */
+    @Override
+    public void startElement(String name, XmlAttributes attributes) {
+        int slot = Math.min(incremental, MAX_SLOTS);
+        switch (name) {
+            case "weatherdata":
+                incremental = 0;
+                break;
+            case "timezone":
+                hasTimezone = true;
+                break;
+            case "time":
+                timeDate[slot] = ForecastAggregator.isoToEpochSeconds(attributes.getValue("from"));
+                break;
+            case "symbol":
+                weatherNumber[slot] = Integer.parseInt(attributes.getValue("number"));
+                break;
+            case "precipitation":
+                precipitation[slot] = parseFloat(attributes.getValue("probability"));
+                break;
+            case "temperature":
+                temperature[slot] = parseFloat(attributes.getValue("value"));
+                break;
+            case "pressure":
+                pressure[slot] = parseFloat(attributes.getValue("value"));
+                break;
+            case "humidity":
+                humidity[slot] = parseFloat(attributes.getValue("value"));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Method reads the UTC offset of the location, in seconds, from the timezone element.
+     * @param ch The characters.
+     * @param start The start position in the character array.
+     * @param length The number of characters to use from the character array.
+     */
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (hasTimezone) {
+            int offset = 0, sign = 1;
+            for (int i = start; i < start + length; i++) {
+                if (ch[i] == '-') {
+                    sign = -1;
+                } else if (ch[i] >= '0' && ch[i] <= '9') {
+                    offset = offset * 10 + (ch[i] - '0');
+                }
+            }
+            timezoneOffset = sign * offset;
+            hasTimezone = false;
+        }
+    }
+
+    /**
+     * Method looks for "time" to know when the end of a forecast slot has been reached.
+     * @param name The element name.
+     */
+    @Override
+    public void endElement(String name) {
+        if (name.equals("time") && incremental < MAX_SLOTS) {
+            incremental++;
+        }
+    }
+
+    /**
+     * Method stores the values of each forecast slot of a JSON response in the same arrays used for the XML
+     * response.
+     * @param path The path of the value.
+     * @param value The value.
+     */
+    @Override
+    public void value(String path, String value) {
+        int slot = Math.min(incremental, MAX_SLOTS);
+        switch (path) {
+            case "list.dt":
+                timeDate[slot] = Long.parseLong(value);
+                break;
+            case "list.weather.id":
+                weatherNumber[slot] = Integer.parseInt(value);
+                break;
+            case "list.pop":
+                precipitation[slot] = parseFloat(value);
+                break;
+            case "list.main.temp":
+                temperature[slot] = parseFloat(value);
+                break;
+            case "list.main.pressure":
+                pressure[slot] = parseFloat(value);
+                break;
+            case "list.main.humidity":
+                humidity[slot] = parseFloat(value);
+                break;
+            case "city.timezone":
+                timezoneOffset = Integer.parseInt(value);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Method looks for the end of a "list" entry to know when the end of a forecast slot has been reached.
+     * @param path The path of the array.
+     */
+    @Override
+    public void endArrayElement(String path) {
+        if (path.equals("list") && incremental < MAX_SLOTS) {
+            incremental++;
+        }
+    }
+
+    private static float parseFloat(String value) {
+        return value == null ? 0.0f : Float.parseFloat(value);
+    }
+
+    /**
+     * Method returns the offset of the location from UTC in seconds.
+     */
+    public int getTimezoneOffset() {
+        return timezoneOffset;
+    }
+
+    /**
+     * Method returns the start of the first forecast slot in epoch seconds, 0 if no slot was read.
+     */
+    long getFirstSlotTime() {
+        return incremental > 0 ? timeDate[0] : 0;
+    }
+
+    /**
+     * Method aggregates the slots by local day of the location.
+     * @return Returns the forecast of every day the slots cover, starting with the current local day.
+     * @throws IOException if the response did not contain any forecast slots.
+     */
+    public DailyForecast[] readWeather() throws IOException {
+        return readWeather(System.currentTimeMillis() / 1000);
+    }
+
+    /**
+     * Method aggregates the slots by local day of the location, taking the local date of the given time as the
+     * current day, so recorded responses can be aggregated as of the time they were recorded.
+     * @param nowEpochSeconds Time whose local date is the first day of the result.
+     * @throws IOException if the response did not contain any forecast slots.
+     */
+    DailyForecast[] readWeather(long nowEpochSeconds) throws IOException {
+        if (incremental == 0) {
+            throw new IOException("Response did not contain a forecast");
+        }
+        aggregator.aggregate(timeDate, temperature, precipitation, humidity, pressure, weatherNumber, incremental,
+                timezoneOffset, nowEpochSeconds);
+        return aggregator.toDailyForecasts();
+    }
+}
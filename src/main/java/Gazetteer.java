@@ -0,0 +1,232 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class looks up zip codes in an offline table of known locations, so an unknown zip code is rejected before any
+ * network call and the city name and coordinates of a known one are available right away. The table is built
+ * from GeoNames postal code data by GazetteerBuilder. Only countries the table holds every full zip code of are
+ * complete, for other countries a zip code missing from the table may still be valid.
+ *
+ * The file is memory mapped and never copied onto the heap, the operating system pages in only the parts that
+ * are searched. Records have a fixed width and are sorted by country and zip code, so a lookup is a binary
+ * search that compares the query with the mapped bytes directly and allocates nothing.
+ *
+ * File layout, big endian:
+ * header: magic "WZG2", record count, offset of the first record, count of complete countries, then every
+ * complete country (2 bytes, lower case).
+ * record, RECORD_SIZE bytes: country (2 bytes, lower case), zip code (10 bytes, upper case, zero padded),
+ * latitude and longitude (float each), city name (44 bytes UTF-8, zero padded).
+ *
+ * The file is "gazetteer.bin" in the working directory and can be changed with the "weather.gazetteer" system
+ * property. Without the file every zip code is accepted and looked up by the API as before, as is a zip code of a
+ * country that is not complete.
+ */
+final class Gazetteer {
+    static final int MAGIC = 0x575A4732;
+    static final int RECORD_SIZE = 64;
+    static final int COUNTRY_LENGTH = 2;
+    static final int ZIP_LENGTH = 10;
+    static final int NAME_LENGTH = 44;
+    private static final int ZIP_OFFSET = COUNTRY_LENGTH;
+    private static final int LATITUDE_OFFSET = ZIP_OFFSET + ZIP_LENGTH;
+    private static final int LONGITUDE_OFFSET = LATITUDE_OFFSET + 4;
+    private static final int NAME_OFFSET = LONGITUDE_OFFSET + 4;
+    private static final Gazetteer INSTANCE = openDefault();
+
+    private final ByteBuffer records;
+    private final int count;
+    // complete countries as the two lower case letters in one int
+    private final int[] completeCountries;
+
+    private Gazetteer(ByteBuffer records, int count, int[] completeCountries) {
+        this.records = records;
+        this.count = count;
+        this.completeCountries = completeCountries;
+    }
+
+    /**
+     * Method returns the gazetteer of the application, empty if no table is installed.
+     */
+    static Gazetteer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Method maps a gazetteer file.
+     * @throws IOException if the file cannot be read or is not a gazetteer.
+     */
+    static Gazetteer open(Path file) throws IOException {
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.BIG_ENDIAN);
+        }
+        if (mapped.remaining() < 16 || mapped.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a gazetteer");
+        }
+        int count = mapped.getInt(4);
+        int recordsOffset = mapped.getInt(8);
+        int countryCount = mapped.getInt(12);
+        if (count < 0 || countryCount < 0 || recordsOffset < 16 + countryCount * COUNTRY_LENGTH
+                || (long) recordsOffset + (long) count * RECORD_SIZE > mapped.capacity()) {
+            throw new IOException(file + " is truncated");
+        }
+        int[] completeCountries = new int[countryCount];
+        for (int i = 0; i < countryCount; i++) {
+            completeCountries[i] = mapped.getShort(16 + i * COUNTRY_LENGTH);
+        }
+        ByteBuffer records = ((ByteBuffer) mapped.duplicate().position(recordsOffset)).slice();
+        return new Gazetteer(records, count, completeCountries);
+    }
+
+    /**
+     * Method returns true if a table is installed. Without one nothing can be validated.
+     */
+    boolean isAvailable() {
+        return count > 0;
+    }
+
+    /**
+     * Method returns true if the table holds every full zip code of a country, so a zip code it does not find
+     * does not exist. GeoNames only has the first part of the postal codes of some countries, those and countries
+     * missing from the table are not complete.
+     * @param country ISO 3166 country code, for example "us".
+     */
+    boolean isComplete(CharSequence country) {
+        if (country.length() != COUNTRY_LENGTH) {
+            return false;
+        }
+        int key = lower(country.charAt(0)) << 8 | lower(country.charAt(1));
+        for (int complete : completeCountries) {
+            if (complete == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method returns the number of locations in the table.
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Method finds a zip code without allocating. Letters are compared ignoring case.
+     * @param zip Zip code as entered, for example "10001".
+     * @param country ISO 3166 country code, for example "us".
+     * @return The record of the location, or -1 if the table does not know it.
+     */
+    int find(CharSequence zip, CharSequence country) {
+        if (zip.length() == 0 || zip.length() > ZIP_LENGTH || country.length() != COUNTRY_LENGTH) {
+            return -1;
+        }
+        int low = 0, high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(middle, zip, country);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Method returns the zip code of a location, upper case as stored.
+     */
+    String getZipCode(int record) {
+        int start = record * RECORD_SIZE + ZIP_OFFSET;
+        StringBuilder zip = new StringBuilder(ZIP_LENGTH);
+        for (int i = 0; i < ZIP_LENGTH && records.get(start + i) != 0; i++) {
+            zip.append((char) records.get(start + i));
+        }
+        return zip.toString();
+    }
+
+    /**
+     * Method returns the lower case country code of a location.
+     */
+    String getCountryCode(int record) {
+        int start = record * RECORD_SIZE;
+        return new String(new char[] {(char) records.get(start), (char) records.get(start + 1)});
+    }
+
+    float getLatitude(int record) {
+        return records.getFloat(record * RECORD_SIZE + LATITUDE_OFFSET);
+    }
+
+    float getLongitude(int record) {
+        return records.getFloat(record * RECORD_SIZE + LONGITUDE_OFFSET);
+    }
+
+    /**
+     * Method returns the city name of a location.
+     */
+    String getCityName(int record) {
+        int start = record * RECORD_SIZE + NAME_OFFSET;
+        int length = 0;
+        while (length < NAME_LENGTH && records.get(start + length) != 0) {
+            length++;
+        }
+        byte[] name = new byte[length];
+        for (int i = 0; i < length; i++) {
+            name[i] = records.get(start + i);
+        }
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Method compares the key of a record with a query, country first and then zip code. Zip codes are stored
+     * upper case and zero padded, so a shorter zip code sorts before a longer one with the same start.
+     */
+    private int compare(int record, CharSequence zip, CharSequence country) {
+        int base = record * RECORD_SIZE;
+        for (int i = 0; i < COUNTRY_LENGTH; i++) {
+            int difference = (records.get(base + i) & 0xFF) - lower(country.charAt(i));
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        for (int i = 0; i < ZIP_LENGTH; i++) {
+            int stored = records.get(base + ZIP_OFFSET + i) & 0xFF;
+            int wanted = i < zip.length() ? upper(zip.charAt(i)) : 0;
+            if (stored != wanted) {
+                return stored - wanted;
+            }
+        }
+        return 0;
+    }
+
+    private static int lower(char c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    private static int upper(char c) {
+        return c >= 'a' && c <= 'z' ? c - ('a' - 'A') : c;
+    }
+
+    private static Gazetteer openDefault() {
+        Path file = Paths.get(System.getProperty("weather.gazetteer", "gazetteer.bin"));
+        if (Files.exists(file)) {
+            try {
+                return open(file);
+            } catch (IOException e) {
+                System.err.println("Cannot load " + file + ", zip codes are not validated: " + e.getMessage());
+            }
+        }
+        return new Gazetteer(ByteBuffer.allocate(0), 0, new int[0]);
+    }
+}
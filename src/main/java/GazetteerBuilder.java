@@ -0,0 +1,193 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Builds the gazetteer file read by Gazetteer from GeoNames postal code dumps, for example US.txt or
+ * allCountries.txt from https://download.geonames.org/export/zip/. The dumps are tab separated with the country
+ * code, postal code and place name in the first three columns and latitude and longitude in columns 10 and 11.
+ *
+ * Every country read is recorded as complete, so its unknown zip codes are rejected without calling the API,
+ * except the countries whose regular dumps only hold the first part of the postal code: CA, GB, IE and NL.
+ * Build those from their "_full" dumps and name them with --full to make them complete, --partial marks any
+ * other country as not complete.
+ *
+ * When a zip code is listed with several places the first one is kept. Zip codes longer than 10 characters are
+ * skipped and city names are cut to 44 bytes.
+ *
+ * Usage: GazetteerBuilder --output gazetteer.bin [--full <country>] [--partial <country>] <dump> [<dump> ...]
+ */
+public class GazetteerBuilder {
+    private static final List<String> PREFIX_ONLY_COUNTRIES = Arrays.asList("ca", "gb", "ie", "nl");
+
+    private final Map<String, byte[]> records = new LinkedHashMap<>();
+    private final Set<String> countries = new TreeSet<>();
+    private final Set<String> partialCountries = new HashSet<>(PREFIX_ONLY_COUNTRIES);
+    private long skipped;
+
+    public static void main(String[] args) throws IOException {
+        Path output = null;
+        List<Path> inputs = new ArrayList<>();
+        GazetteerBuilder builder = new GazetteerBuilder();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--output":
+                    output = Paths.get(args[++i]);
+                    break;
+                case "--full":
+                    builder.partialCountries.remove(args[++i].toLowerCase());
+                    break;
+                case "--partial":
+                    builder.partialCountries.add(args[++i].toLowerCase());
+                    break;
+                default:
+                    inputs.add(Paths.get(args[i]));
+            }
+        }
+        if (output == null || inputs.isEmpty()) {
+            System.err.println("Usage: GazetteerBuilder --output gazetteer.bin [--full <country>] "
+                    + "[--partial <country>] <geonames dump> [<geonames dump> ...]");
+            System.exit(2);
+        }
+
+        for (Path input : inputs) {
+            builder.read(input);
+        }
+        builder.write(output);
+        System.err.printf("Wrote %d locations to %s, complete countries %s, %d lines skipped%n",
+                builder.records.size(), output, builder.completeCountries(), builder.skipped);
+    }
+
+    /**
+     * Method reads the locations of one dump.
+     */
+    void read(Path input) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split("\t", -1);
+                if (columns.length < 11 || columns[0].length() != Gazetteer.COUNTRY_LENGTH) {
+                    skipped++;
+                    continue;
+                }
+                String country = columns[0].toLowerCase();
+                String zip = columns[1].trim().toUpperCase();
+                if (zip.isEmpty() || zip.length() > Gazetteer.ZIP_LENGTH || !isAscii(zip)) {
+                    skipped++;
+                    continue;
+                }
+                float latitude, longitude;
+                try {
+                    latitude = Float.parseFloat(columns[9]);
+                    longitude = Float.parseFloat(columns[10]);
+                } catch (NumberFormatException e) {
+                    skipped++;
+                    continue;
+                }
+                String key = country + '\0' + zip;
+                if (!records.containsKey(key)) {
+                    records.put(key, record(country, zip.getBytes(StandardCharsets.US_ASCII), latitude, longitude,
+                            columns[2].trim()));
+                    countries.add(country);
+                }
+            }
+        }
+    }
+
+    /**
+     * Method writes the locations sorted by their key bytes, the order the binary search of Gazetteer expects.
+     * The file is written next to the target and moved into place, so a running application never maps a
+     * partly written table.
+     */
+    void write(Path output) throws IOException {
+        byte[][] sorted = records.values().toArray(new byte[0][]);
+        Arrays.sort(sorted, GazetteerBuilder::compareKeys);
+        List<String> complete = completeCountries();
+        int headerSize = 16 + complete.size() * Gazetteer.COUNTRY_LENGTH;
+
+        Path temporary = output.resolveSibling(output.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temporary);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(Gazetteer.MAGIC);
+            out.writeInt(sorted.length);
+            out.writeInt(headerSize);
+            out.writeInt(complete.size());
+            for (String country : complete) {
+                out.write(country.getBytes(StandardCharsets.US_ASCII));
+            }
+            for (byte[] record : sorted) {
+                out.write(record);
+            }
+        }
+        Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Method returns the countries read whose zip codes are all in the table, in alphabetical order.
+     */
+    List<String> completeCountries() {
+        List<String> complete = new ArrayList<>(countries);
+        complete.removeAll(partialCountries);
+        return complete;
+    }
+
+    private static byte[] record(String country, byte[] zip, float latitude, float longitude, String name) {
+        ByteBuffer record = ByteBuffer.allocate(Gazetteer.RECORD_SIZE);
+        record.put(country.getBytes(StandardCharsets.US_ASCII));
+        record.put(zip);
+        record.position(Gazetteer.COUNTRY_LENGTH + Gazetteer.ZIP_LENGTH);
+        record.putFloat(latitude);
+        record.putFloat(longitude);
+        record.put(truncate(name.getBytes(StandardCharsets.UTF_8)));
+        return record.array();
+    }
+
+    /**
+     * Method cuts a UTF-8 name to the name field without splitting a character.
+     */
+    private static byte[] truncate(byte[] name) {
+        if (name.length <= Gazetteer.NAME_LENGTH) {
+            return name;
+        }
+        int length = Gazetteer.NAME_LENGTH;
+        while (length > 0 && (name[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        return Arrays.copyOf(name, length);
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compareKeys(byte[] a, byte[] b) {
+        for (int i = 0; i < Gazetteer.COUNTRY_LENGTH + Gazetteer.ZIP_LENGTH; i++) {
+            int difference = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return 0;
+    }
+}
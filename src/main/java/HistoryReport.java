@@ -0,0 +1,73 @@
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless entry point that prints the recorded history of one value of a location, summarized in equally
+ * long buckets with their lowest, average and highest value.
+ *
+ * Usage: HistoryReport --zip 10001 [--country us] [--days 30] [--buckets 30]
+ *                      [--field temperature|feels_like|wind_speed|humidity|pressure|visibility|cloudiness|
+ *                      precipitation_chance]
+ */
+public class HistoryReport {
+    private static final DateTimeFormatter BUCKET_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")
+            .withZone(ZoneId.systemDefault());
+
+    public static void main(String[] args) throws IOException {
+        String zip = null, country = "us";
+        int days = 30, buckets = 30;
+        WeatherHistoryStore.Field field = WeatherHistoryStore.Field.TEMPERATURE;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--zip":
+                    zip = args[++i];
+                    break;
+                case "--country":
+                    country = args[++i];
+                    break;
+                case "--days":
+                    days = Integer.parseInt(args[++i]);
+                    break;
+                case "--buckets":
+                    buckets = Integer.parseInt(args[++i]);
+                    break;
+                case "--field":
+                    field = WeatherHistoryStore.Field.valueOf(args[++i].toUpperCase());
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (zip == null || days < 1 || buckets < 1) {
+            System.err.println("Usage: HistoryReport --zip <zip code> [--country <code>] [--days <n>]"
+                    + " [--buckets <n>] [--field <name>]");
+            System.exit(2);
+        }
+
+        long to = System.currentTimeMillis() / 1000;
+        long from = to - TimeUnit.DAYS.toSeconds(days) + 1;
+        float[] min = new float[buckets], mean = new float[buckets], max = new float[buckets];
+        int[] count = new int[buckets];
+        long start = System.nanoTime();
+        int total = WeatherHistoryStore.getInstance().downsample(zip, country, from, to, field, min, mean, max, count);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%s for %s, %s over %d days: %d observations, read in %.2f ms%n",
+                field.name().toLowerCase(), zip, country, days, total, elapsed / 1e6);
+        double bucketSeconds = (double) (to - from + 1) / buckets;
+        for (int i = 0; i < buckets; i++) {
+            String bucketStart = BUCKET_FORMAT.format(Instant.ofEpochSecond(from + (long) (i * bucketSeconds)));
+            if (count[i] == 0) {
+                System.out.printf("%s  %6s%n", bucketStart, "-");
+            } else {
+                System.out.printf("%s  min %8.1f  mean %8.1f  max %8.1f  (%d)%n",
+                        bucketStart, min[i], mean[i], max[i], count[i]);
+            }
+        }
+    }
+}
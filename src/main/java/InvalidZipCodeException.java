@@ -0,0 +1,13 @@
+import java.io.IOException;
+
+/**
+ * Exception thrown when a zip code is rejected before any API call, because it is malformed or the gazetteer
+ * does not know it.
+ */
+class InvalidZipCodeException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    InvalidZipCodeException(String zipCode, String countryCode) {
+        super("Unknown zip code " + zipCode + ", " + countryCode);
+    }
+}
@@ -0,0 +1,72 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class parses JSON responses with the streaming tokenizer and reports every value with its path, so the
+ * handlers fill the same fields they fill from XML without the document being held in memory.
+ */
+class JsonParserEngine {
+    private static final int MAX_DEPTH = 32;
+
+    /**
+     * Method parses a complete response.
+     * @param in Response body.
+     * @param handler Handler that receives the values of the response.
+     * @throws IOException if the response cannot be read or is not valid JSON.
+     */
+    void parse(InputStream in, WeatherJsonHandler handler) throws IOException {
+        JsonTokenizer tokenizer = new JsonTokenizer(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String[] paths = new String[MAX_DEPTH];
+        boolean[] isArray = new boolean[MAX_DEPTH];
+        int depth = 0;
+        String path = "";
+        String name = null;
+
+        while (true) {
+            JsonTokenizer.Token token = tokenizer.next();
+            switch (token) {
+                case END_DOCUMENT:
+                    return;
+                case NAME:
+                    name = tokenizer.getText();
+                    break;
+                case BEGIN_OBJECT:
+                case BEGIN_ARRAY:
+                    if (depth == MAX_DEPTH) {
+                        throw new IOException("JSON response nested too deeply");
+                    }
+                    paths[depth] = path;
+                    isArray[depth] = token == JsonTokenizer.Token.BEGIN_ARRAY;
+                    depth++;
+                    path = child(path, name);
+                    name = null;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    path = paths[depth];
+                    name = null;
+                    if (token == JsonTokenizer.Token.END_OBJECT && depth > 0 && isArray[depth - 1]) {
+                        handler.endArrayElement(path);
+                    }
+                    break;
+                case NULL:
+                    name = null;
+                    break;
+                default:
+                    handler.value(child(path, name), tokenizer.getText());
+                    name = null;
+                    break;
+            }
+        }
+    }
+
+    private static String child(String path, String name) {
+        if (name == null) {
+            return path;
+        }
+        return path.isEmpty() ? name : path + "." + name;
+    }
+}
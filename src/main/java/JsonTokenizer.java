@@ -0,0 +1,201 @@
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Class splits a JSON document into tokens one at a time while reading it, so a response can be processed
+ * without building a tree of the whole document in memory. The text of a name or value is only valid until
+ * the next call to next().
+ */
+class JsonTokenizer {
+    enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT }
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder text = new StringBuilder(64);
+    private int position, limit;
+    private long offset;
+    private boolean[] inObject = new boolean[16];
+    private int depth;
+    private boolean expectName;
+
+    JsonTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Method reads the next token. Commas and colons are consumed as separators.
+     * @return The token that was read, END_DOCUMENT once the input is exhausted.
+     * @throws IOException if the input cannot be read or is not valid JSON, also if it ends while an object or
+     * array is still open, as a truncated response does.
+     */
+    Token next() throws IOException {
+        int c = skipSeparators();
+        switch (c) {
+            case -1:
+                if (depth > 0) {
+                    throw error("Unexpected end of input");
+                }
+                return Token.END_DOCUMENT;
+            case '{':
+                push(true);
+                expectName = true;
+                return Token.BEGIN_OBJECT;
+            case '}':
+                pop(true);
+                return Token.END_OBJECT;
+            case '[':
+                push(false);
+                return Token.BEGIN_ARRAY;
+            case ']':
+                pop(false);
+                return Token.END_ARRAY;
+            case '"':
+                readString();
+                if (expectName && depth > 0 && inObject[depth - 1]) {
+                    expectName = false;
+                    return Token.NAME;
+                }
+                return Token.STRING;
+            case 't':
+            case 'f':
+            case 'n':
+                readLiteral(c);
+                return c == 'n' ? Token.NULL : Token.BOOLEAN;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    readNumber(c);
+                    return Token.NUMBER;
+                }
+                throw error("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    /**
+     * Method returns the text of the last NAME, STRING, NUMBER or BOOLEAN token.
+     */
+    String getText() {
+        return text.toString();
+    }
+
+    private int skipSeparators() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == ',') {
+                expectName = depth > 0 && inObject[depth - 1];
+            } else if (c != ':' && c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+        }
+    }
+
+    private void readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return;
+            } else if (c == '\\') {
+                int escaped = read();
+                switch (escaped) {
+                    case 'b': text.append('\b'); break;
+                    case 'f': text.append('\f'); break;
+                    case 'n': text.append('\n'); break;
+                    case 'r': text.append('\r'); break;
+                    case 't': text.append('\t'); break;
+                    case 'u':
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(read(), 16);
+                            if (digit < 0) {
+                                throw error("Invalid unicode escape");
+                            }
+                            code = (code << 4) | digit;
+                        }
+                        text.append((char) code);
+                        break;
+                    case '"':
+                    case '\\':
+                    case '/':
+                        text.append((char) escaped);
+                        break;
+                    default:
+                        throw error("Invalid escape");
+                }
+            } else if (c == -1) {
+                throw error("Unterminated string");
+            } else {
+                text.append((char) c);
+            }
+        }
+    }
+
+    private void readNumber(int first) throws IOException {
+        text.setLength(0);
+        text.append((char) first);
+        while (true) {
+            int c = peek();
+            if ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                text.append((char) read());
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void readLiteral(int first) throws IOException {
+        String expected = first == 't' ? "true" : first == 'f' ? "false" : "null";
+        for (int i = 1; i < expected.length(); i++) {
+            if (read() != expected.charAt(i)) {
+                throw error("Invalid literal");
+            }
+        }
+        text.setLength(0);
+        text.append(expected);
+    }
+
+    private void push(boolean object) {
+        if (depth == inObject.length) {
+            boolean[] larger = new boolean[depth * 2];
+            System.arraycopy(inObject, 0, larger, 0, depth);
+            inObject = larger;
+        }
+        inObject[depth++] = object;
+    }
+
+    private void pop(boolean object) throws IOException {
+        if (depth == 0 || inObject[depth - 1] != object) {
+            throw error("Unbalanced closing bracket");
+        }
+        depth--;
+        expectName = false;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        position = 0;
+        limit = reader.read(buffer, 0, buffer.length);
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " in JSON at offset " + (offset + position));
+    }
+}
@@ -0,0 +1,150 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Class keeps the last snapshot the GUI displayed in a small binary file, so the next launch can paint it at once
+ * instead of showing empty panels until the API has answered, also when the computer is offline.
+ *
+ * The file holds one snapshot as written by DataOutputStream: magic "WLS2", location, units, times and every
+ * value of the current conditions and the forecast days, about 250 bytes. Conditions are stored by their
+ * condition code, so the file stays readable when the enum changes. It is replaced atomically, a launch never reads a half
+ * written file.
+ */
+final class LastSnapshotStore {
+    private static final int MAGIC = 0x574C5332;
+    private static final LastSnapshotStore INSTANCE = new LastSnapshotStore();
+
+    private final Path file;
+
+    /**
+     * Default file is ".weather_app/last_snapshot.bin" in the user's home directory. It can be changed with the
+     * "weather.last.snapshot" system property.
+     */
+    LastSnapshotStore() {
+        this(Paths.get(System.getProperty("weather.last.snapshot",
+                Paths.get(System.getProperty("user.home"), ".weather_app", "last_snapshot.bin").toString())));
+    }
+
+    LastSnapshotStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Method returns the store used by the GUI.
+     */
+    static LastSnapshotStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Method reads the saved snapshot.
+     * @return The snapshot, or null if none has been saved or the file cannot be read.
+     */
+    WeatherSnapshot load() {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(content))) {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            String zipCode = in.readUTF();
+            String countryCode = in.readUTF();
+            String units = in.readUTF();
+            long fetchedAt = in.readLong();
+            int timezoneOffset = in.readInt();
+            long firstForecastSlot = in.readLong();
+            CurrentConditions current = new CurrentConditions(in.readInt(), in.readUTF(), in.readUTF(),
+                    in.readFloat(), in.readFloat(), in.readInt(), in.readLong(), in.readLong(), in.readFloat(),
+                    in.readFloat(), in.readFloat(), in.readFloat(), in.readInt(), in.readInt(), in.readFloat(),
+                    in.readInt(), in.readInt(), WeatherCondition.fromCode(in.readShort()), in.readLong());
+            DailyForecast[] forecast = new DailyForecast[in.readUnsignedByte()];
+            for (int i = 0; i < forecast.length; i++) {
+                forecast[i] = new DailyForecast(in.readLong(), in.readFloat(), in.readFloat(), in.readFloat(),
+                        in.readInt(), in.readInt(), WeatherCondition.fromCode(in.readShort()));
+            }
+            return new WeatherSnapshot(zipCode, countryCode, units, fetchedAt, timezoneOffset, firstForecastSlot,
+                    current, forecast);
+        } catch (IOException e) {
+            // truncated or from an incompatible version, the next refresh writes a new one
+            return null;
+        }
+    }
+
+    /**
+     * Method replaces the saved snapshot.
+     */
+    void save(WeatherSnapshot snapshot) throws IOException {
+        CurrentConditions current = snapshot.getCurrent();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeUTF(snapshot.getZipCode());
+            out.writeUTF(snapshot.getCountryCode());
+            out.writeUTF(snapshot.getUnits());
+            out.writeLong(snapshot.getFetchedAt());
+            out.writeInt(snapshot.getTimezoneOffset());
+            out.writeLong(snapshot.getFirstForecastSlot());
+            out.writeInt(current.getCityId());
+            out.writeUTF(current.getCityName() == null ? "" : current.getCityName());
+            out.writeUTF(current.getCountryCode() == null ? "" : current.getCountryCode());
+            out.writeFloat(current.getLatitude());
+            out.writeFloat(current.getLongitude());
+            out.writeInt(current.getTimezoneOffset());
+            out.writeLong(current.getSunrise());
+            out.writeLong(current.getSunset());
+            out.writeFloat(current.getTemperature());
+            out.writeFloat(current.getMinTemperature());
+            out.writeFloat(current.getMaxTemperature());
+            out.writeFloat(current.getFeelsLike());
+            out.writeInt(current.getHumidity());
+            out.writeInt(current.getPressure());
+            out.writeFloat(current.getWindSpeed());
+            out.writeInt(current.getCloudiness());
+            out.writeInt(current.getVisibility());
+            out.writeShort(current.getCondition().getCode());
+            out.writeLong(current.getLastUpdate());
+            int days = Math.min(snapshot.getForecastDayCount(), 255);
+            out.writeByte(days);
+            for (int i = 0; i < days; i++) {
+                DailyForecast day = snapshot.getForecastDay(i);
+                out.writeLong(day.getEpochDay());
+                out.writeFloat(day.getMinTemperature());
+                out.writeFloat(day.getMaxTemperature());
+                out.writeFloat(day.getPrecipitationChance());
+                out.writeInt(day.getHumidity());
+                out.writeInt(day.getPressure());
+                out.writeShort(day.getCondition().getCode());
+            }
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, bytes.toByteArray());
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
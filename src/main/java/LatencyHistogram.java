@@ -0,0 +1,111 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class records latencies into log-linear buckets so that percentiles can be reported without keeping every
+ * sample. Each power of two is split into 32 buckets which keeps the error of a reported value under about 3%.
+ * Recording only increments an atomic counter, so many threads can record at once without locking.
+ */
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Method records one latency.
+     * @param nanos Latency in nanoseconds, negative values are recorded as zero.
+     */
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.incrementAndGet();
+        totalNanos.addAndGet(value);
+        long max;
+        while (value > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, value)) {
+            // retry until this value is stored or a larger one was recorded by another thread
+        }
+    }
+
+    /**
+     * Method returns the number of recorded latencies.
+     */
+    long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Method returns the mean of the recorded latencies in the requested unit.
+     */
+    double getMean(TimeUnit unit) {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalNanos.get() / count / unit.toNanos(1);
+    }
+
+    /**
+     * Method returns the largest recorded latency in the requested unit.
+     */
+    double getMax(TimeUnit unit) {
+        return (double) maxNanos.get() / unit.toNanos(1);
+    }
+
+    /**
+     * Method returns the latency below which the given percentage of the recorded latencies fall.
+     * @param percentile Percentile between 0 and 100, for example 99.9.
+     * @param unit Unit of the returned value.
+     * @return Upper bound of the bucket holding the percentile, or 0 if nothing was recorded.
+     */
+    double getPercentile(double percentile, TimeUnit unit) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return (double) Math.min(bucketUpperBound(i), maxNanos.get()) / unit.toNanos(1);
+            }
+        }
+        return getMax(unit);
+    }
+
+    /**
+     * Method returns the number of latencies recorded in a bucket, together with bucketUpperBound() this
+     * allows the full histogram to be printed.
+     */
+    long getBucketCount(int index) {
+        return counts.get(index);
+    }
+
+    /**
+     * Method returns the number of buckets.
+     */
+    int getNumberOfBuckets() {
+        return counts.length();
+    }
+
+    /**
+     * Method returns the largest latency in nanoseconds that falls into a bucket.
+     */
+    static long bucketUpperBound(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = index - (long) shift * SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+}
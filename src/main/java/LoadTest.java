@@ -0,0 +1,232 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless load generator that calls refresh() from a number of concurrent callers for a fixed time and
+ * reports the throughput, latency percentiles and a latency histogram. The response cache and the API quota are
+ * turned off so every call reaches the server. It is meant to be run against StandInServer so capacity can be
+ * measured without the live service.
+ *
+ * Each call uses the next of a list of zip codes, so with fewer zip codes than callers the same location is
+ * requested concurrently and coalescing can be observed. The zip codes are read from --zip-file, one per line,
+ * or else taken from the gazetteer, so they pass the offline zip code check and every call reaches the server.
+ * Without either a range starting at 10000 is used.
+ *
+ * Usage: LoadTest [--url http://localhost:8089/data/2.5/] [--callers 32] [--duration 30] [--warmup 5]
+ *                 [--zips 1000] [--zip-file zips.txt] [--country us] [--format xml|json]
+ */
+public class LoadTest {
+    private final int callers;
+    private final String[] zipCodes;
+    private final String countryCode;
+    private final AtomicLong nextZip = new AtomicLong();
+    private volatile LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder networkFailures = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    LoadTest(int callers, String[] zipCodes, String countryCode) {
+        this.callers = callers;
+        this.zipCodes = zipCodes;
+        this.countryCode = countryCode;
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        String url = "http://localhost:8089/data/2.5/", country = "us", zipFile = null;
+        int callers = 32, duration = 30, warmup = 5, zips = 1000;
+        WireFormat format = WireFormat.XML;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--url":
+                    url = args[++i];
+                    break;
+                case "--callers":
+                    callers = Integer.parseInt(args[++i]);
+                    break;
+                case "--duration":
+                    duration = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--zips":
+                    zips = Integer.parseInt(args[++i]);
+                    break;
+                case "--zip-file":
+                    zipFile = args[++i];
+                    break;
+                case "--country":
+                    country = args[++i];
+                    break;
+                case "--format":
+                    format = WireFormat.valueOf(args[++i].toUpperCase());
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (callers < 1 || zips < 1 || duration < 1) {
+            System.err.println("Usage: LoadTest [--url <base url>] [--callers <n>] [--duration <s>] [--warmup <s>]"
+                    + " [--zips <n>] [--zip-file <file>] [--country <code>] [--format xml|json]");
+            System.exit(2);
+        }
+
+        WeatherAPI.setBaseUrl(url);
+        WeatherAPI.setWireFormat(format);
+        WeatherAPI.setCacheEnabled(false);
+        WeatherAPI.setHistoryEnabled(false);
+        ApiQuota.getInstance().setEnabled(false);
+        String[] zipCodes = zipCodes(zipFile, zips, country);
+        if (zipCodes.length == 0) {
+            System.err.println("No zip codes for country " + country);
+            System.exit(2);
+        }
+        LoadTest test = new LoadTest(callers, zipCodes, country);
+        if (warmup > 0) {
+            System.err.println("Warming up for " + warmup + " s");
+            test.run(TimeUnit.SECONDS.toNanos(warmup));
+        }
+        test.reset();
+        System.err.println("Running " + callers + " callers for " + duration + " s against " + url);
+        long elapsed = test.run(TimeUnit.SECONDS.toNanos(duration));
+        test.report(elapsed);
+        System.exit(0);
+    }
+
+    /**
+     * Method runs every caller until the duration has passed and waits for their last calls to finish.
+     * @return The time the run took in nanoseconds.
+     */
+    long run(long durationNanos) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+        List<Thread> threads = new ArrayList<>(callers);
+        for (int i = 0; i < callers; i++) {
+            Thread thread = new Thread(() -> call(deadline), "load-test-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void call(long deadline) {
+        WeatherAPI weatherAPI = new WeatherAPI();
+        weatherAPI.setCountryCode(countryCode);
+        while (System.nanoTime() < deadline) {
+            weatherAPI.setZipCode(zipCodes[(int) (nextZip.getAndIncrement() % zipCodes.length)]);
+            long start = System.nanoTime();
+            try {
+                weatherAPI.refresh();
+                latencies.record(System.nanoTime() - start);
+            } catch (NetworkConnectionException e) {
+                networkFailures.increment();
+            } catch (IOException | RuntimeException e) {
+                failures.increment();
+            }
+        }
+    }
+
+    /**
+     * Method chooses up to count zip codes: the first ones of the file if one is given, otherwise the first ones
+     * of the country in the gazetteer, otherwise a range starting at 10000.
+     */
+    static String[] zipCodes(String zipFile, int count, String country) throws IOException {
+        List<String> zipCodes = new ArrayList<>(count);
+        if (zipFile != null) {
+            for (String line : Files.readAllLines(Paths.get(zipFile), StandardCharsets.UTF_8)) {
+                String zip = line.trim();
+                if (!zip.isEmpty() && !zip.startsWith("#") && zipCodes.size() < count) {
+                    zipCodes.add(zip);
+                }
+            }
+        } else if (Gazetteer.getInstance().isAvailable()) {
+            Gazetteer gazetteer = Gazetteer.getInstance();
+            for (int record = 0; record < gazetteer.size() && zipCodes.size() < count; record++) {
+                if (gazetteer.getCountryCode(record).equalsIgnoreCase(country)) {
+                    zipCodes.add(gazetteer.getZipCode(record));
+                }
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                zipCodes.add(String.format("%05d", 10000 + i));
+            }
+        }
+        return zipCodes.toArray(new String[0]);
+    }
+
+    private void reset() {
+        latencies = new LatencyHistogram();
+        networkFailures.reset();
+        failures.reset();
+    }
+
+    /**
+     * Method prints the throughput, the latency percentiles of the successful calls and their histogram with one
+     * row per power of two milliseconds.
+     */
+    void report(long elapsedNanos) {
+        LatencyHistogram histogram = latencies;
+        double seconds = elapsedNanos / 1e9;
+        long succeeded = histogram.getCount();
+        System.out.printf("Calls: %d succeeded, %d failed, %d network failures%n",
+                succeeded, failures.sum(), networkFailures.sum());
+        System.out.printf("Throughput: %.1f refreshes/s over %.1f s with %d callers%n",
+                succeeded / seconds, seconds, callers);
+        System.out.printf("Latency ms: mean %.2f  p50 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                histogram.getMean(TimeUnit.MILLISECONDS),
+                histogram.getPercentile(50, TimeUnit.MILLISECONDS),
+                histogram.getPercentile(99, TimeUnit.MILLISECONDS),
+                histogram.getPercentile(99.9, TimeUnit.MILLISECONDS),
+                histogram.getMax(TimeUnit.MILLISECONDS));
+        System.out.printf("Coalesced endpoint calls: %d%n", WeatherAPI.getCoalescedRequestCount());
+        if (succeeded == 0) {
+            return;
+        }
+
+        // rows cover (bound / 2, bound] in milliseconds, the first row everything up to 1/8 ms
+        long[] rows = new long[40];
+        for (int i = 0; i < histogram.getNumberOfBuckets(); i++) {
+            long count = histogram.getBucketCount(i);
+            if (count > 0) {
+                long upperNanos = LatencyHistogram.bucketUpperBound(i);
+                int row = 0;
+                while (row < rows.length - 1 && upperNanos > rowBoundNanos(row)) {
+                    row++;
+                }
+                rows[row] += count;
+            }
+        }
+        int first = 0, last = rows.length - 1;
+        while (rows[first] == 0) {
+            first++;
+        }
+        while (rows[last] == 0) {
+            last--;
+        }
+        long largest = 0;
+        for (long count : rows) {
+            largest = Math.max(largest, count);
+        }
+        System.out.println("Latency histogram:");
+        for (int row = first; row <= last; row++) {
+            int bar = (int) Math.round(50.0 * rows[row] / largest);
+            System.out.printf("  <= %10.3f ms %10d  %s%n", rowBoundNanos(row) / 1e6, rows[row],
+                    new String(new char[bar]).replace('\0', '#'));
+        }
+    }
+
+    private static long rowBoundNanos(int row) {
+        return 125_000L << row;
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * This class defines a custom exception that is instantiated in the event that the 
+ * application is unable to establish a connection with the internet.
+ */
+class NetworkConnectionException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	public NetworkConnectionException() {
+		super("No active internet connection. "
+				+ "Please establish a connection and try again.");
+	}
+}
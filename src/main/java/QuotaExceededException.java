@@ -0,0 +1,21 @@
+import java.io.IOException;
+
+/**
+ * Exception thrown when an API call is not made because the call budget of the process is used up.
+ */
+class QuotaExceededException extends IOException {
+    private static final long serialVersionUID = 1L;
+    private final long retryAfterMillis;
+
+    QuotaExceededException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Method returns how long until the budget allows the next call.
+     */
+    long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,149 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class decides when the weather of one location should be fetched next. The API publishes new current
+ * conditions at a regular interval, stamped with their "lastupdate" time, and drops the first forecast slot every
+ * 3 hours once it has passed. The scheduler learns the publishing interval from the lastupdate times it sees and
+ * polls shortly after the next publication is expected, instead of at a fixed period that mostly fetches the same
+ * data again.
+ *
+ * A response that did not change means the prediction was early, the following polls then back off
+ * exponentially. Every delay gets a random jitter so locations that were refreshed together drift apart, and no
+ * delay is longer than the maximum, so data is never older than with a fixed refresh period of that length.
+ *
+ * Instances are thread safe.
+ */
+final class RefreshScheduler {
+    static final long DEFAULT_MAX_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long DEFAULT_INTERVAL_SECONDS = 600;
+    private static final long MIN_INTERVAL_SECONDS = 60;
+    private static final long SLOT_SECONDS = TimeUnit.HOURS.toSeconds(3);
+    private static final long MIN_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    // time the API needs after the lastupdate time before the new data is served
+    private static final long SETTLE_MILLIS = TimeUnit.SECONDS.toMillis(20);
+    private static final long MAX_JITTER_MILLIS = TimeUnit.SECONDS.toMillis(15);
+    private static final int MAX_BACKOFF_SHIFT = 10;
+
+    private final long maxDelayMillis;
+    private long lastUpdate;
+    private long firstForecastSlot;
+    private long intervalSeconds = DEFAULT_INTERVAL_SECONDS;
+    private int unchangedCount;
+    private int failureCount;
+    private long dueAtMillis;
+
+    RefreshScheduler() {
+        this(DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    /**
+     * @param maxDelayMillis Longest time between two polls, also the oldest the shown data can get.
+     */
+    RefreshScheduler(long maxDelayMillis) {
+        if (maxDelayMillis < MIN_DELAY_MILLIS + MAX_JITTER_MILLIS) {
+            throw new IllegalArgumentException("Maximum delay must be at least "
+                    + (MIN_DELAY_MILLIS + MAX_JITTER_MILLIS) + " ms");
+        }
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * Method returns true if the next poll is due. A new scheduler is due immediately.
+     */
+    synchronized boolean isDue(long nowMillis) {
+        return nowMillis >= dueAtMillis;
+    }
+
+    /**
+     * Method returns true once a refresh has succeeded, a poll is then due because new data is expected.
+     */
+    synchronized boolean hasRefreshed() {
+        return lastUpdate > 0;
+    }
+
+    /**
+     * Method returns the time of the next poll in epoch milliseconds.
+     */
+    synchronized long getDueAtMillis() {
+        return dueAtMillis;
+    }
+
+    /**
+     * Method records a successful refresh and schedules the next poll.
+     * @param snapshot The weather received.
+     * @param nowMillis Current time in epoch milliseconds.
+     * @return Delay until the next poll in milliseconds.
+     */
+    synchronized long refreshed(WeatherSnapshot snapshot, long nowMillis) {
+        long update = snapshot.getCurrent().getLastUpdate();
+        long slot = snapshot.getFirstForecastSlot();
+        boolean changed = update != lastUpdate || slot != firstForecastSlot;
+        if (lastUpdate > 0 && update > lastUpdate) {
+            long sample = update - lastUpdate;
+            // a poll that missed a publication sees a multiple of the interval, such samples are not averaged in
+            if (sample >= MIN_INTERVAL_SECONDS && sample < 2 * intervalSeconds) {
+                intervalSeconds = (3 * intervalSeconds + sample) / 4;
+            }
+        }
+        lastUpdate = update;
+        firstForecastSlot = slot;
+        failureCount = 0;
+        unchangedCount = changed ? 0 : unchangedCount + 1;
+
+        long nextChangeMillis = TimeUnit.SECONDS.toMillis(
+                Math.min(update + intervalSeconds, nextSlot(slot, nowMillis)));
+        long delay;
+        if (nextChangeMillis > nowMillis && unchangedCount == 0) {
+            delay = nextChangeMillis - nowMillis + SETTLE_MILLIS;
+        } else {
+            // the publication is late, poll again after a growing pause
+            delay = SETTLE_MILLIS << Math.min(unchangedCount, MAX_BACKOFF_SHIFT);
+        }
+        return schedule(delay, nowMillis);
+    }
+
+    /**
+     * Method records a failed refresh and schedules a retry, retries back off exponentially.
+     * @return Delay until the next poll in milliseconds.
+     */
+    synchronized long failed(long nowMillis) {
+        failureCount++;
+        return schedule(MIN_DELAY_MILLIS << Math.min(failureCount - 1, MAX_BACKOFF_SHIFT), nowMillis);
+    }
+
+    /**
+     * Method returns the number of polls in a row that received the same data as the poll before.
+     */
+    synchronized int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    /**
+     * Method returns the learned publishing interval of the current conditions in seconds.
+     */
+    synchronized long getIntervalSeconds() {
+        return intervalSeconds;
+    }
+
+    private long schedule(long delayMillis, long nowMillis) {
+        long delay = Math.min(Math.max(delayMillis, MIN_DELAY_MILLIS), maxDelayMillis - MAX_JITTER_MILLIS)
+                + ThreadLocalRandom.current().nextLong(MAX_JITTER_MILLIS + 1);
+        dueAtMillis = nowMillis + delay;
+        return delay;
+    }
+
+    /**
+     * Method returns when the forecast loses its next slot, in epoch seconds.
+     */
+    private static long nextSlot(long firstSlot, long nowMillis) {
+        long now = TimeUnit.MILLISECONDS.toSeconds(nowMillis);
+        if (firstSlot <= 0) {
+            return Long.MAX_VALUE / 2;
+        }
+        if (firstSlot > now) {
+            return firstSlot;
+        }
+        return firstSlot + ((now - firstSlot) / SLOT_SECONDS + 1) * SLOT_SECONDS;
+    }
+}
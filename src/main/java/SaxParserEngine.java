@@ -0,0 +1,54 @@
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Class parses responses with the SAX parser. The parser is created once per thread and reset after each
+ * response instead of being created for every call.
+ */
+class SaxParserEngine implements WeatherParserEngine {
+    private static final ThreadLocal<SAXParser> parsers = ThreadLocal.withInitial(() -> {
+        try {
+            return SAXParserFactory.newInstance().newSAXParser();
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @Override
+    public void parse(InputStream in, WeatherXmlHandler handler) throws IOException {
+        SAXParser parser = parsers.get();
+        try {
+            parser.parse(in, new DefaultHandler() {
+                private Attributes current;
+                private final XmlAttributes attributes = name -> current.getValue(name);
+
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes atts) {
+                    current = atts;
+                    handler.startElement(qName, attributes);
+                }
+
+                @Override
+                public void endElement(String uri, String localName, String qName) {
+                    handler.endElement(qName);
+                }
+
+                @Override
+                public void characters(char[] ch, int start, int length) {
+                    handler.characters(ch, start, length);
+                }
+            });
+        } catch (SAXException e) {
+            throw new IOException("Unable to parse weather response", e);
+        } finally {
+            parser.reset();
+        }
+    }
+}
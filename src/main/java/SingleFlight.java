@@ -0,0 +1,99 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class makes sure that only one call per key is in progress at a time. The first caller of a key runs the call,
+ * callers that arrive for the same key while it is running wait for it and receive the same result or the same
+ * exception instead of running the call again. Once the call has finished the key is free again.
+ *
+ * The call runs on its own executor, not on the thread of the caller that started it, and every caller only
+ * waits for it. Interrupting or cancelling one caller therefore ends that caller's wait but never the shared
+ * call, and the other callers still receive its result.
+ * @param <K> Type of the key.
+ * @param <V> Type of the result.
+ */
+class SingleFlight<K, V> {
+    private static final ExecutorService callExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "single-flight");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+    private final Executor executor;
+
+    SingleFlight() {
+        this(callExecutor);
+    }
+
+    /**
+     * @param executor Executor the shared calls run on.
+     */
+    SingleFlight(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Interface for the work shared by the callers of one key.
+     */
+    interface Call<V> {
+        V call() throws Exception;
+    }
+
+    /**
+     * Method runs the call for the key, or waits for the call already running for it.
+     * @param key Key that identifies identical calls.
+     * @param call Work to run if no call for the key is in progress.
+     * @return Result of the call that ran for the key.
+     * @throws Exception thrown by the call, or InterruptedException if the caller was interrupted while waiting.
+     */
+    V execute(K key, Call<V> call) throws Exception {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    inFlight.remove(key, future);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        return await(future);
+    }
+
+    /**
+     * Method returns how many callers received the result of a call run by another caller.
+     */
+    long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    private static <V> V await(CompletableFuture<V> running) throws Exception {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+}
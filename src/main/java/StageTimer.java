@@ -0,0 +1,42 @@
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class holds the latencies of one stage of a refresh and publishes them over JMX in milliseconds.
+ */
+class StageTimer implements StageTimerMBean {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    @Override
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return histogram.getMean(TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public double getP50Millis() {
+        return histogram.getPercentile(50, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public double getP99Millis() {
+        return histogram.getPercentile(99, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public double getP999Millis() {
+        return histogram.getPercentile(99.9, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return histogram.getMax(TimeUnit.MILLISECONDS);
+    }
+}
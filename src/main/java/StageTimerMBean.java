@@ -0,0 +1,16 @@
+/**
+ * JMX view of the latencies of one stage of a refresh, registered as "WeatherApp:type=Stage,name=<stage>".
+ */
+public interface StageTimerMBean {
+    long getCount();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+}
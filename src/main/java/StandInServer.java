@@ -0,0 +1,238 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local stand-in for the Open Weather Map API, used to run the application and the load test without the live
+ * service or an API key. The "weather" and "forecast" endpoints answer every zip code with the recorded
+ * responses in src/main/resources/fixtures, in XML when "mode=xml" is requested and in JSON otherwise. All dates
+ * of the recordings are moved forward by whole days so the forecast always starts today.
+ *
+ * Latency, jitter, server errors and 429 throttling can be injected to see how callers behave under a slow or
+ * overloaded service.
+ *
+ * Usage: StandInServer [--port 8089] [--latency ms] [--jitter ms] [--error-rate 0.01] [--throttle-rate 0.05]
+ *                      [--threads 64]
+ *
+ * Point the application at it with -Dweather.api.url=http://localhost:8089/data/2.5/
+ */
+public class StandInServer {
+    private static final String FIXTURE_DATE = "2020-10-18";
+    private static final Pattern ISO_DATE_TIME = Pattern.compile("(\\d{4}-\\d{2}-\\d{2})([T ]\\d{2}:\\d{2}:\\d{2})");
+    private static final Pattern EPOCH_SECONDS = Pattern.compile("(\"(?:dt|sunrise|sunset)\":)(\\d+)");
+
+    private final int latencyMillis;
+    private final int jitterMillis;
+    private final double errorRate;
+    private final double throttleRate;
+    private final byte[][] fixtures = new byte[4][];
+    private volatile Responses responses;
+
+    /**
+     * Class holds the fixtures moved to one day, plain and gzip compressed.
+     */
+    private static final class Responses {
+        private final long epochDay;
+        private final byte[][] plain = new byte[4][];
+        private final byte[][] gzip = new byte[4][];
+
+        Responses(long epochDay) {
+            this.epochDay = epochDay;
+        }
+    }
+
+    StandInServer(int latencyMillis, int jitterMillis, double errorRate, double throttleRate) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.errorRate = errorRate;
+        this.throttleRate = throttleRate;
+        fixtures[index(WeatherEndpoint.CURRENT, WireFormat.XML)] = fixture("weather.xml");
+        fixtures[index(WeatherEndpoint.CURRENT, WireFormat.JSON)] = fixture("weather.json");
+        fixtures[index(WeatherEndpoint.FORECAST, WireFormat.XML)] = fixture("forecast.xml");
+        fixtures[index(WeatherEndpoint.FORECAST, WireFormat.JSON)] = fixture("forecast.json");
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8089, latency = 0, jitter = 0, threads = 64;
+        double errorRate = 0, throttleRate = 0;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--latency":
+                    latency = Integer.parseInt(args[++i]);
+                    break;
+                case "--jitter":
+                    jitter = Integer.parseInt(args[++i]);
+                    break;
+                case "--error-rate":
+                    errorRate = Double.parseDouble(args[++i]);
+                    break;
+                case "--throttle-rate":
+                    throttleRate = Double.parseDouble(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        HttpServer server = new StandInServer(latency, jitter, errorRate, throttleRate).start(port, threads);
+        System.err.println("Serving the weather API stand-in at http://localhost:"
+                + server.getAddress().getPort() + "/data/2.5/");
+    }
+
+    /**
+     * Method starts the server.
+     * @param port Port to listen on, 0 picks a free port.
+     * @param threads Number of threads handling requests, injected latency holds a thread for its duration.
+     * @return The running server.
+     */
+    HttpServer start(int port, int threads) throws IOException {
+        // headers and body are written separately, without TCP_NODELAY Nagle's algorithm holds the body back
+        // until the client's delayed ACK and every response takes about 40 ms longer
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                runnable -> new Thread(runnable, "stand-in-server"));
+        server.setExecutor(executor);
+        server.createContext("/data/2.5/" + WeatherEndpoint.CURRENT.getPath(),
+                exchange -> respond(exchange, WeatherEndpoint.CURRENT));
+        server.createContext("/data/2.5/" + WeatherEndpoint.FORECAST.getPath(),
+                exchange -> respond(exchange, WeatherEndpoint.FORECAST));
+        server.start();
+        return server;
+    }
+
+    private void respond(HttpExchange exchange, WeatherEndpoint endpoint) throws IOException {
+        try {
+            if (!exchange.getRequestURI().getPath().endsWith("/" + endpoint.getPath())) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int delay = latencyMillis + (jitterMillis > 0 ? random.nextInt(jitterMillis + 1) : 0);
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (random.nextDouble() < throttleRate) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                exchange.sendResponseHeaders(429, -1);
+                return;
+            }
+            if (random.nextDouble() < errorRate) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+
+            String query = exchange.getRequestURI().getRawQuery();
+            WireFormat format = query != null && query.contains("mode=xml") ? WireFormat.XML : WireFormat.JSON;
+            Responses today = responsesForToday();
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+            byte[] body = gzip ? today.gzip[index(endpoint, format)] : today.plain[index(endpoint, format)];
+
+            exchange.getResponseHeaders().set("Content-Type",
+                    format == WireFormat.XML ? "application/xml; charset=utf-8" : "application/json; charset=utf-8");
+            if (gzip) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Method returns the fixtures moved to the current UTC date, they are rebuilt once when the date changes.
+     */
+    private Responses responsesForToday() throws IOException {
+        long epochDay = LocalDate.now(ZoneOffset.UTC).toEpochDay();
+        Responses current = responses;
+        if (current != null && current.epochDay == epochDay) {
+            return current;
+        }
+        Responses shifted = new Responses(epochDay);
+        long days = epochDay - LocalDate.parse(FIXTURE_DATE).toEpochDay();
+        for (int i = 0; i < fixtures.length; i++) {
+            shifted.plain[i] = shift(fixtures[i], days);
+            shifted.gzip[i] = gzip(shifted.plain[i]);
+        }
+        responses = shifted;
+        return shifted;
+    }
+
+    /**
+     * Method moves every ISO date time and every epoch time stamp of a response forward by whole days, which
+     * keeps the forecast slots on their 3 hour boundaries.
+     */
+    private static byte[] shift(byte[] fixture, long days) {
+        String text = new String(fixture, StandardCharsets.UTF_8);
+        Matcher dates = ISO_DATE_TIME.matcher(text);
+        StringBuffer out = new StringBuffer(text.length());
+        while (dates.find()) {
+            String date = LocalDate.parse(dates.group(1)).plusDays(days).toString();
+            dates.appendReplacement(out, date + dates.group(2));
+        }
+        dates.appendTail(out);
+
+        Matcher epochs = EPOCH_SECONDS.matcher(out.toString());
+        out.setLength(0);
+        while (epochs.find()) {
+            long seconds = Long.parseLong(epochs.group(2)) + days * 86_400;
+            epochs.appendReplacement(out, epochs.group(1) + seconds);
+        }
+        epochs.appendTail(out);
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int index(WeatherEndpoint endpoint, WireFormat format) {
+        return endpoint.ordinal() * 2 + format.ordinal();
+    }
+
+    private static byte[] fixture(String name) throws IOException {
+        try (InputStream in = StandInServer.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IOException("Missing fixture " + name);
+            }
+            return WeatherTransport.readFully(in);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
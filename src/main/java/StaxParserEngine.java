@@ -0,0 +1,57 @@
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Class parses responses with a pull parser. One XMLInputFactory is kept per thread and attributes are only
+ * read when the handler asks for them.
+ */
+class StaxParserEngine implements WeatherParserEngine {
+    private static final ThreadLocal<XMLInputFactory> factories = ThreadLocal.withInitial(() -> {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    });
+
+    @Override
+    public void parse(InputStream in, WeatherXmlHandler handler) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = factories.get().createXMLStreamReader(in);
+            XMLStreamReader current = reader;
+            XmlAttributes attributes = name -> current.getAttributeValue(null, name);
+
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        handler.startElement(reader.getLocalName(), attributes);
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        handler.endElement(reader.getLocalName());
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                        handler.characters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to parse weather response", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+import java.io.IOException;
+
+/**
+ * Class reads the XML data stream, for the current day, from the parser engine. Values are converted
+ * to primitives as they are read and returned as immutable CurrentConditions.
+ */
+class UserHandler implements WeatherXmlHandler, WeatherJsonHandler {
+
+    private String cityName, country;
+    private int cityID, timezone, humidity, pressure, cloudyValue, visibility, weatherNumber = -1;
+    private float longitude, latitude, currentTemperature, minimumTemperature, maximumTemperature, feelsLike,
+            windSpeed;
+    private long sunrise, sunset, lastUpdate;
+    private boolean hasCountry, hasTimezone, hasWeather = false;
+
+    /**
+     * Method looks for specific element names in an XML document and then stores their associated values.
+     * @param name The element name.
+     * @param attributes The attributes attached to the element.
+     */
+    @Override
+    public void startElement(String name, XmlAttributes attributes) {
+        switch (name) {
+            case "city":
+                cityID = parseInt(attributes.getValue("id"));
+                cityName = attributes.getValue("name");
+                break;
+            case "coord":
+                longitude = parseFloat(attributes.getValue("lon"));
+                latitude = parseFloat(attributes.getValue("lat"));
+                break;
+            case "country":
+                hasCountry = true;
+                break;
+            case "timezone":
+                hasTimezone = true;
+                break;
+            case "sun":
+                sunrise = parseIso(attributes.getValue("rise"));
+                sunset = parseIso(attributes.getValue("set"));
+                break;
+            case "temperature":
+                currentTemperature = parseFloat(attributes.getValue("value"));
+                minimumTemperature = parseFloat(attributes.getValue("min"));
+                maximumTemperature = parseFloat(attributes.getValue("max"));
+                break;
+            case "feels_like":
+                feelsLike = parseFloat(attributes.getValue("value"));
+                break;
+            case "humidity":
+                humidity = parseInt(attributes.getValue("value"));
+                break;
+            case "pressure":
+                pressure = parseInt(attributes.getValue("value"));
+                break;
+            case "speed":
+                windSpeed = parseFloat(attributes.getValue("value"));
+                break;
+            case "clouds":
+                cloudyValue = parseInt(attributes.getValue("value"));
+                break;
+            case "visibility":
+                visibility = parseInt(attributes.getValue("value"));
+                break;
+            case "weather":
+                weatherNumber = parseInt(attributes.getValue("number"));
+                break;
+            case "lastupdate":
+                lastUpdate = parseIso(attributes.getValue("value"));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Method reads in commented text in XML for country and timezone.
+     * @param ch The characters.
+     * @param start The start position in the character array.
+     * @param length The number of characters to use from the character array.
+     */
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (hasCountry){
+            country = new String(ch, start, length);
+            hasCountry = false;
+        } else if (hasTimezone){
+            timezone = Integer.parseInt(new String(ch, start, length).trim());
+            hasTimezone = false;
+        }
+    }
+
+    /**
+     * Method stores the values of a JSON response in the same fields used for the XML response.
+     * @param path The path of the value.
+     * @param value The value.
+     */
+    @Override
+    public void value(String path, String value) {
+        switch (path) {
+            case "id":
+                cityID = parseInt(value);
+                break;
+            case "name":
+                cityName = value;
+                break;
+            case "coord.lon":
+                longitude = parseFloat(value);
+                break;
+            case "coord.lat":
+                latitude = parseFloat(value);
+                break;
+            case "sys.country":
+                country = value;
+                break;
+            case "timezone":
+                timezone = parseInt(value);
+                break;
+            case "sys.sunrise":
+                sunrise = Long.parseLong(value);
+                break;
+            case "sys.sunset":
+                sunset = Long.parseLong(value);
+                break;
+            case "main.temp":
+                currentTemperature = parseFloat(value);
+                break;
+            case "main.temp_min":
+                minimumTemperature = parseFloat(value);
+                break;
+            case "main.temp_max":
+                maximumTemperature = parseFloat(value);
+                break;
+            case "main.feels_like":
+                feelsLike = parseFloat(value);
+                break;
+            case "main.humidity":
+                humidity = parseInt(value);
+                break;
+            case "main.pressure":
+                pressure = parseInt(value);
+                break;
+            case "wind.speed":
+                windSpeed = parseFloat(value);
+                break;
+            case "clouds.all":
+                cloudyValue = parseInt(value);
+                break;
+            case "visibility":
+                visibility = parseInt(value);
+                break;
+            case "weather.id":
+                if (!hasWeather) {
+                    weatherNumber = parseInt(value);
+                }
+                break;
+            case "dt":
+                lastUpdate = Long.parseLong(value);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Method notes the end of the first "weather" entry, only the first entry describes the main condition.
+     * @param path The path of the array.
+     */
+    @Override
+    public void endArrayElement(String path) {
+        if (path.equals("weather")) {
+            hasWeather = true;
+        }
+    }
+
+    /**
+     * Method assigns all of the stored values into an immutable CurrentConditions.
+     * @return Returns the current conditions of the location.
+     * @throws IOException if the response did not describe a location, for example for an unknown zip code.
+     */
+    public CurrentConditions readWeather() throws IOException {
+        if (cityName == null || weatherNumber < 0) {
+            throw new IOException("Response did not contain current weather");
+        }
+        return new CurrentConditions(cityID, cityName, country, latitude, longitude, timezone, sunrise, sunset,
+                currentTemperature, minimumTemperature, maximumTemperature, feelsLike, humidity, pressure,
+                windSpeed, cloudyValue, visibility, WeatherCondition.fromCode(weatherNumber), lastUpdate);
+    }
+
+    private static int parseInt(String value) {
+        return value == null || value.isEmpty() ? 0 : (int) Float.parseFloat(value);
+    }
+
+    private static float parseFloat(String value) {
+        return value == null || value.isEmpty() ? Float.NaN : Float.parseFloat(value);
+    }
+
+    private static long parseIso(String value) {
+        return value == null || value.isEmpty() ? 0 : ForecastAggregator.isoToEpochSeconds(value);
+    }
+}
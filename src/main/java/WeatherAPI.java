@@ -1,40 +1,59 @@
-import org.xml.sax.Attributes;
-import org.xml.sax.SAXException;
-import org.xml.sax.helpers.DefaultHandler;
-
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.ConnectException;
+import java.net.MalformedURLException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
-import java.text.NumberFormat;
-import java.time.LocalDate;
+import java.net.URLEncoder;
+import java.net.UnknownHostException;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.util.Properties;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class WeatherAPI {
-    private static String API_KEY;
-    static{
-        try {
-            API_KEY = DataReader.getProperty("API_KEY");
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-    private static final String API_KEY_PHRASE = "&appid=" + API_KEY;
+    private static final ConfigService configService = ConfigService.getInstance();
     private static final String CALL_BY_ZIPCODE = "?zip=";
-    private static final String DATA_FORMAT = "&mode=xml";
-    private String urlCallAddress;
-    private final UserHandler userHandler = new UserHandler();
-    private final ForecastHandler forecastHandler = new ForecastHandler();
+    private static final String CALL_BY_COORDINATES = "?lat=";
+    // 24 slots of 3 hours cover the three days the GUI shows
+    static final int FORECAST_SLOTS = 24;
     private String zipCode;
     private String countryCode;
-    private Properties currentWeather = new Properties();
-    private Properties forecastWeather = new Properties();
-    private boolean canUpdate, startupDefaultWeatherCall = true;
-    private static LocalDateTime currentTimeDate;
+    private volatile WeatherSnapshot snapshot;
+    private RefreshScheduler refreshScheduler = new RefreshScheduler();
+    private volatile ApiQuota.Mode quotaMode = ApiQuota.Mode.BLOCK;
+    private static final WeatherCache responseCache = new WeatherCache();
+    private static final WeatherTransport transport = new WeatherTransport();
+    private static final WeatherMetrics metrics = WeatherMetrics.getInstance();
+    private static final ApiQuota quota = ApiQuota.getInstance();
+    private static final Gazetteer gazetteer = Gazetteer.getInstance();
+    private static final WeatherHistoryStore history = WeatherHistoryStore.getInstance();
+    private static volatile boolean historyEnabled = true;
+    private static final WeatherSubscriptions subscriptions = WeatherSubscriptions.getInstance();
+    private static final SingleFlight<String, CurrentConditions> currentFlight = new SingleFlight<>();
+    private static final SingleFlight<String, ForecastResult> forecastFlight = new SingleFlight<>();
+    private static volatile String baseUrlOverride;
+    private static volatile ApiAddress apiAddress;
+    private static volatile boolean cacheEnabled = true;
+    private static final ExecutorService fetchExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "weather-fetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile WeatherParserEngine parserEngine = new StaxParserEngine();
+    private static final JsonParserEngine jsonParserEngine = new JsonParserEngine();
+    private static volatile WireFormat wireFormat = WireFormat.XML;
+    private final List<FetchTask> fetchTasks = new CopyOnWriteArrayList<>();
 
     /**
      * Default configuration of weather API. Set zipcode and/or country code for different location. Call update weather
@@ -43,41 +62,172 @@ public class WeatherAPI {
     public WeatherAPI() {
         zipCode = "10001";
         countryCode = "us";
-        canUpdate = true;
     }
 
     /**
-     * Method organizes the weather call and timing.
-     * @throws AlreadyUpToDateException & IOException thrown by call to callWeather() so
+     * Method organizes the weather call and timing. The current weather and forecast are published together
+     * as one immutable WeatherSnapshot once both calls have completed. Responses are served from the on-disk response cache
+     * while they are fresh, so switching between zip codes or restarting the application does not call the
+     * API again until the cached data expires.
+     *
+     * The location is only fetched again once its RefreshScheduler expects new data from the API, a new
+     * location is fetched right away. A poll of a location that was refreshed before revalidates the cached
+     * responses with the API even if they have not expired, the scheduler has already decided new data is due.
+     * @throws AlreadyUpToDateException if no new data is expected yet.
+     * @throws IOException & NetworkConnectionException thrown by call to callWeather() so
      * that they can be handled in the GUI subsystem.
      */
     public void updateWeather() throws IOException, AlreadyUpToDateException, NetworkConnectionException {
-        LocalDateTime localTime = LocalDateTime.now(ZoneOffset.UTC);
-        
-        if (localTime.isAfter(currentTimeDate.plusMinutes(10))){
-            canUpdate = true;
+        RefreshScheduler scheduler = refreshScheduler;
+        if (!scheduler.isDue(System.currentTimeMillis())) {
+            metrics.alreadyUpToDate();
+            throw new AlreadyUpToDateException();
         }
+        boolean succeeded = false;
+        try {
+            refresh(scheduler.hasRefreshed());
+            succeeded = true;
+        } finally {
+            if (succeeded) {
+                scheduler.refreshed(snapshot, System.currentTimeMillis());
+            } else {
+                scheduler.failed(System.currentTimeMillis());
+            }
+        }
+    }
 
-        if (canUpdate){
-            checkNetworkConnection();
-        	if(!startupDefaultWeatherCall) {
-        		canUpdate = false;
-        	}
-        	else {
-        		startupDefaultWeatherCall = false;
-        	}
-
-            getWeatherDataByZipCode(false);
-            callWeather(userHandler);
-            currentWeather = userHandler.readWeather();
-            getWeatherDataByZipCode(true);
-            callWeather(forecastHandler);
-            forecastWeather = forecastHandler.readWeather();
-        }else{
-            throw new AlreadyUpToDateException();
+    /**
+     * Method returns how long until updateWeather() fetches the location again, 0 if it would fetch it now.
+     */
+    long getNextUpdateDelayMillis() {
+        return Math.max(0, refreshScheduler.getDueAtMillis() - System.currentTimeMillis());
+    }
+
+    /**
+     * Method fetches the current weather and forecast for the configured location without asking the
+     * RefreshScheduler. Headless callers such as the batch runner manage their own timing and call this directly.
+     * Concurrent refreshes of the same location share one call per endpoint and receive the same data.
+     * The current conditions are recorded in the WeatherHistoryStore and the snapshot is handed to the listeners
+     * subscribed to the location.
+     * @throws InvalidZipCodeException if the gazetteer does not know the zip code.
+     * @throws IOException & NetworkConnectionException thrown by call to callWeather().
+     */
+    void refresh() throws IOException, NetworkConnectionException {
+        refresh(false);
+    }
+
+    /**
+     * Method fetches the current weather and forecast like refresh().
+     * @param revalidate True to ask the API whether cached responses changed even if they have not expired yet,
+     *                   for callers whose own schedule says new data is due.
+     */
+    void refresh(boolean revalidate) throws IOException, NetworkConnectionException {
+        String zip = zipCode, country = countryCode;
+        // an unknown zip code is rejected here instead of by two API calls
+        locate(zip, country);
+        // both calls use the same settings even if the configuration is reloaded meanwhile
+        WeatherConfig config = configService.get();
+        ApiAddress address = apiAddress();
+        String variant = variant(config, address);
+        CurrentConditions[] current = new CurrentConditions[1];
+        DailyForecast[][] forecast = new DailyForecast[1][];
+        int[] timezoneOffset = new int[1];
+        long[] firstForecastSlot = new long[1];
+
+        List<FetchTask> tasks = new ArrayList<>(fetchTasks.size() + 2);
+        tasks.add((taskZip, taskCountry) -> {
+            CurrentConditions weather = currentFlight.execute(
+                    flightKey(WeatherEndpoint.CURRENT, taskZip, taskCountry, variant),
+                    () -> {
+                        UserHandler userHandler = new UserHandler();
+                        return callWeather(userHandler, UserHandler::readWeather, WeatherEndpoint.CURRENT,
+                                taskZip, taskCountry, config, address, variant, revalidate);
+                    });
+            return () -> current[0] = weather;
+        });
+        tasks.add((taskZip, taskCountry) -> {
+            ForecastResult result = forecastFlight.execute(
+                    flightKey(WeatherEndpoint.FORECAST, taskZip, taskCountry, variant),
+                    () -> {
+                        ForecastHandler forecastHandler = new ForecastHandler();
+                        DailyForecast[] days = callWeather(forecastHandler, handler -> {
+                            long start = System.nanoTime();
+                            DailyForecast[] aggregated = handler.readWeather();
+                            metrics.recordSince(WeatherMetrics.Stage.AGGREGATION, start);
+                            return aggregated;
+                        }, WeatherEndpoint.FORECAST, taskZip, taskCountry, config, address, variant, revalidate);
+                        return new ForecastResult(days, forecastHandler.getTimezoneOffset(),
+                                forecastHandler.getFirstSlotTime());
+                    });
+            return () -> {
+                forecast[0] = result.days;
+                timezoneOffset[0] = result.timezoneOffset;
+                firstForecastSlot[0] = result.firstSlotTime;
+            };
+        });
+        tasks.addAll(fetchTasks);
+
+        metrics.refreshAttempted();
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            fetchAll(tasks, zip, country);
+            succeeded = true;
+        } finally {
+            if (!succeeded) {
+                metrics.refreshFailed();
+            }
+            metrics.recordSince(WeatherMetrics.Stage.REFRESH, start);
         }
+
+        snapshot = new WeatherSnapshot(zip, country, config.getUnits(), System.currentTimeMillis() / 1000,
+                timezoneOffset[0], firstForecastSlot[0], current[0], forecast[0]);
+        if (historyEnabled) {
+            try {
+                history.append(snapshot);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        subscriptions.publish(snapshot);
     }
     
+    /**
+     * Method returns how many endpoint calls were answered by a call for the same location that was already
+     * in progress, for example from another window or a duplicate zip code in a batch, instead of calling the API.
+     */
+    static long getCoalescedRequestCount() {
+        return currentFlight.getCoalescedCount() + forecastFlight.getCoalescedCount();
+    }
+
+    private static String flightKey(WeatherEndpoint endpoint, String zip, String country, String variant) {
+        return endpoint.getPath() + '|' + zip + '|' + country.toLowerCase() + '|' + variant;
+    }
+
+    /**
+     * Method returns everything besides the location that the responses depend on: the units, the number of
+     * forecast slots and the address of the API. It is part of the response cache and single flight keys, so
+     * after a configuration reload no response fetched with the old settings is served or shared.
+     */
+    private static String variant(WeatherConfig config, ApiAddress address) {
+        return config.getUnits() + '|' + FORECAST_SLOTS + '|' + address.baseUrl;
+    }
+
+    /**
+     * Class holds the parsed forecast shared by coalesced callers.
+     */
+    private static final class ForecastResult {
+        private final DailyForecast[] days;
+        private final int timezoneOffset;
+        private final long firstSlotTime;
+
+        ForecastResult(DailyForecast[] days, int timezoneOffset, long firstSlotTime) {
+            this.days = days;
+            this.timezoneOffset = timezoneOffset;
+            this.firstSlotTime = firstSlotTime;
+        }
+    }
+
     static class AlreadyUpToDateException extends Exception{
 		private static final long serialVersionUID = 1L;
 		
@@ -87,67 +237,390 @@ public class WeatherAPI {
     }
 
     /**
-     * Method creates and runs the SAX parser to read in XML data from the Open Weather Map API url.
-     * Handles exceptions that occur during the creation of the parser or its attempt to process 
-     * incoming XML data.
-     * @throws IOException thrown by call to saxParser.parse(new URL(urlCallAddress).openStream(), userHandler)
+     * Interface for one endpoint call of a refresh. All tasks of a refresh run in parallel on the fetch
+     * executor. fetch() downloads and parses its data without touching shared state and returns the action
+     * that publishes the result, which only runs once every task of the refresh has completed successfully.
      */
-    private void callWeather(DefaultHandler userHandler) throws IOException{
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        
+    public interface FetchTask {
+        Runnable fetch(String zipCode, String countryCode) throws Exception;
+    }
+
+    /**
+     * Method registers an additional endpoint call that is fetched in parallel with the current weather and
+     * forecast calls on every refresh.
+     * @param task Task to run on each refresh.
+     */
+    public void addFetchTask(FetchTask task) {
+        fetchTasks.add(task);
+    }
+
+    /**
+     * Method submits every task to the fetch executor, waits for all of them and then runs their publish
+     * actions, so the refresh takes as long as the slowest call instead of the sum of all calls. If any task
+     * fails the remaining tasks are cancelled and nothing is published.
+     * @throws IOException & NetworkConnectionException rethrown from the first task that failed.
+     */
+    private void fetchAll(List<FetchTask> tasks, String zip, String country)
+            throws IOException, NetworkConnectionException {
+        List<Future<Runnable>> futures = new ArrayList<>(tasks.size());
+        for (FetchTask task : tasks) {
+            futures.add(fetchExecutor.submit(() -> task.fetch(zip, country)));
+        }
+        List<Runnable> publishers = new ArrayList<>(futures.size());
         try {
-            SAXParser saxParser = factory.newSAXParser();
-            saxParser.parse(new URL(urlCallAddress).openStream(), userHandler);
-        } catch(SAXException | ParserConfigurationException e) {
-        	e.printStackTrace();
+            for (Future<Runnable> future : futures) {
+                publishers.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Weather refresh interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof NetworkConnectionException) {
+                throw (NetworkConnectionException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            for (Future<Runnable> future : futures) {
+                future.cancel(true);
+            }
+        }
+        for (Runnable publisher : publishers) {
+            publisher.run();
         }
     }
 
     /**
-     * Method executes the necessary instructions to check if the user's computer has an active internet
-     * connection.
-     * Handles exceptions that occur when the JVM attempts to create a thread to execute these
-     * instructions or when that thread is interrupted before completing these instructions.
-     * @throws NetworkConnectionException if an active internet connection is not detected.
+     * Method reads in the data from the Open Weather Map API url in the selected wire format. XML responses
+     * are read with the configured parser engine and JSON responses with the streaming JSON parser.
+     * The response is taken from the response cache when a fresh copy exists for the current zip and
+     * country code, otherwise the internet connection is checked and the response is downloaded. A downloaded
+     * response is only cached once it has been parsed and read, a broken response is fetched again by the next
+     * call instead of being served until it expires.
+     * An expired copy is revalidated with a conditional request and reused if the server answers 304, as is a
+     * fresh copy when revalidate is true.
+     * @param reader Reads the result from the handler after parsing.
+     * @return The result of the reader.
+     * @throws IOException thrown when the response cannot be downloaded from the API, parsed or read
+     * @throws NetworkConnectionException if the response is not cached and there is no internet connection.
+     */
+    private <H extends WeatherXmlHandler & WeatherJsonHandler, V> V callWeather(
+            H handler, ResponseReader<H, V> reader, WeatherEndpoint endpoint, String zip, String country,
+            WeatherConfig config, ApiAddress address, String variant, boolean revalidate)
+            throws IOException, NetworkConnectionException {
+        WireFormat format = wireFormat;
+        WeatherCache.Entry cached = cacheEnabled
+                ? responseCache.getEntry(endpoint, format, zip, country, variant) : null;
+        byte[] response;
+        WeatherTransport.Response downloaded = null;
+        if (cached != null && !revalidate && cached.getAgeMillis() <= config.getTtlSeconds(endpoint) * 1000) {
+            metrics.cacheHit();
+            response = cached.getBody();
+        } else if (!takeQuota(cached)) {
+            // budget used up, the expired copy is better than nothing
+            metrics.cacheHit();
+            response = cached.getBody();
+        } else {
+            checkNetworkConnection(address);
+            WeatherTransport.Response result;
+            try {
+                result = transport.get(getWeatherDataByZipCode(config, address, endpoint, format, zip, country),
+                        cached == null ? null : cached.getEtag(), cached == null ? null : cached.getLastModified());
+            } catch (ConnectException | NoRouteToHostException | UnknownHostException | SocketTimeoutException e) {
+                address.monitor.reportFailure();
+                metrics.networkFailure();
+                throw new NetworkConnectionException();
+            }
+            metrics.record(WeatherMetrics.Stage.HTTP_RESPONSE, result.getTimeToFirstByteNanos());
+            if (result.isNotModified()) {
+                if (cached == null) {
+                    // no validators were sent, so there is no body the answer could refer to
+                    throw new IOException("Weather service answered 304 Not Modified to an unconditional request");
+                }
+                metrics.notModified();
+                responseCache.touch(endpoint, format, zip, country, variant);
+                response = cached.getBody();
+            } else {
+                metrics.record(WeatherMetrics.Stage.HTTP_READ, result.getReadNanos());
+                metrics.bytesReceived(result.getWireBytes());
+                response = result.getBody();
+                downloaded = result;
+            }
+        }
+        long start = System.nanoTime();
+        if (format == WireFormat.JSON) {
+            jsonParserEngine.parse(new ByteArrayInputStream(response), handler);
+        } else {
+            parserEngine.parse(new ByteArrayInputStream(response), handler);
+        }
+        metrics.recordSince(endpoint == WeatherEndpoint.CURRENT
+                ? WeatherMetrics.Stage.PARSE_CURRENT : WeatherMetrics.Stage.PARSE_FORECAST, start);
+        V value = reader.read(handler);
+        if (downloaded != null && cacheEnabled) {
+            responseCache.put(endpoint, format, zip, country, variant, response, downloaded.getEtag(),
+                    downloaded.getLastModified());
+        }
+        return value;
+    }
+
+    /**
+     * Interface for reading the result of a call from its handler once the response has been parsed.
+     */
+    private interface ResponseReader<H, V> {
+        V read(H handler) throws IOException;
+    }
+
+    /**
+     * Method takes one call from the API budget of the process, as the quota mode of this instance says.
+     * @param cached Cached response of the call, expired or not, or null.
+     * @return True if the call may be made, false if the cached response should be used instead.
+     * @throws QuotaExceededException if the budget is used up and there is no cached response to fall back to.
+     */
+    private boolean takeQuota(WeatherCache.Entry cached) throws IOException {
+        try {
+            quota.acquire(quotaMode);
+            return true;
+        } catch (QuotaExceededException e) {
+            if (quotaMode == ApiQuota.Mode.CACHED_FALLBACK && cached != null) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Method chooses what happens when the API budget of the process is used up: BLOCK waits for it, FAIL_FAST
+     * throws a QuotaExceededException and CACHED_FALLBACK uses an expired cached response when there is one.
+     */
+    void setQuotaMode(ApiQuota.Mode mode) {
+        quotaMode = mode;
+    }
+
+    /**
+     * Method changes the address the API is called at for all WeatherAPI instances, for example to point the
+     * application at a local stand-in server. Without a call to this method the BASE_URL setting of the
+     * configuration is used, which defaults to the Open Weather Map 2.5 API. Connectivity is checked against
+     * the host of the address in use.
+     * @param url Base URL that the endpoint names are appended to, or null to use the configuration again.
+     * @throws IllegalArgumentException if the URL is not a valid http or https URL.
+     */
+    static void setBaseUrl(String url) {
+        baseUrlOverride = url == null ? null : WeatherConfig.normalizeBaseUrl(url);
+    }
+
+    /**
+     * Method returns the base URL in use together with the connectivity monitor of its host. The monitor is
+     * only looked up again when the URL changes.
+     */
+    private static ApiAddress apiAddress() {
+        String url = baseUrlOverride != null ? baseUrlOverride : configService.get().getBaseUrl();
+        ApiAddress address = apiAddress;
+        if (address == null || !address.baseUrl.equals(url)) {
+            address = new ApiAddress(url);
+            apiAddress = address;
+        }
+        return address;
+    }
+
+    /**
+     * Class holds a base URL and the connectivity monitor of its host.
+     */
+    private static final class ApiAddress {
+        private final String baseUrl;
+        private final ConnectivityMonitor monitor;
+
+        ApiAddress(String baseUrl) {
+            URL parsed;
+            try {
+                parsed = new URL(baseUrl);
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException("Invalid API base URL: " + baseUrl, e);
+            }
+            this.baseUrl = baseUrl;
+            this.monitor = ConnectivityMonitor.forHost(parsed.getHost(),
+                    parsed.getPort() == -1 ? parsed.getDefaultPort() : parsed.getPort());
+        }
+    }
+
+    /**
+     * Method turns the response cache on or off for all WeatherAPI instances. With the cache off every
+     * refresh calls the API, which is what a load test needs. The cache is on by default.
+     */
+    static void setCacheEnabled(boolean enabled) {
+        cacheEnabled = enabled;
+    }
+
+    /**
+     * Method turns recording every fetched observation in the WeatherHistoryStore on or off, for example for
+     * load tests. It is on by default.
+     */
+    static void setHistoryEnabled(boolean enabled) {
+        historyEnabled = enabled;
+    }
+
+    /**
+     * Method subscribes a listener to the weather of a location. Whenever any WeatherAPI instance in the process
+     * fetches the location, the listener receives the values that changed since its last update, so it never
+     * has to poll. Listeners run on a shared background pool.
+     * @return The subscription, close it to stop receiving updates.
+     */
+    static WeatherSubscriptions.Subscription subscribe(String zip, String country, WeatherListener listener) {
+        return subscriptions.subscribe(zip, country, listener, null);
+    }
+
+    /**
+     * Method subscribes a listener to the weather of a location, running it on the given executor, for example
+     * Platform::runLater to update a GUI.
+     * @return The subscription, close it to stop receiving updates.
+     */
+    static WeatherSubscriptions.Subscription subscribe(String zip, String country, WeatherListener listener,
+                                                       Executor executor) {
+        return subscriptions.subscribe(zip, country, listener, executor);
+    }
+
+    /**
+     * Method changes the timeouts of requests to the API for all WeatherAPI instances. By default a
+     * connection must be established within 5 seconds and data must arrive within 10 seconds.
+     * @param connectTimeoutMillis Longest time to wait for the connection to be established.
+     * @param readTimeoutMillis Longest time to wait for data once connected.
+     */
+    static void setTimeouts(int connectTimeoutMillis, int readTimeoutMillis) {
+        transport.setTimeouts(connectTimeoutMillis, readTimeoutMillis);
+    }
+
+    /**
+     * Method changes the engine used to parse API responses for all WeatherAPI instances. The StAX engine
+     * is used by default.
+     * @param engine Parser engine to use.
+     */
+    static void setParserEngine(WeatherParserEngine engine) {
+        parserEngine = engine;
+    }
+
+    /**
+     * Method changes the format responses are requested in for all WeatherAPI instances. XML is used by
+     * default.
+     * @param format Wire format to request.
+     */
+    static void setWireFormat(WireFormat format) {
+        wireFormat = format;
+    }
+
+    /**
+     * Method checks whether the API host is reachable. The answer comes from the shared connectivity monitor,
+     * which probes the host inside the JVM and keeps the result up to date in the background, so this check
+     * does not wait on the network once the first probe has completed.
+     * @throws NetworkConnectionException if the API host is not reachable.
      */
     void checkNetworkConnection() throws NetworkConnectionException {
-    	try {
-			Process netConnectionChecker = Runtime.getRuntime().exec("ping www.google.com");
-			int threadTermination = netConnectionChecker.waitFor();
-			
-			if(threadTermination != 0) {
-				throw new NetworkConnectionException();
-			}
-			
-		} catch (IOException | InterruptedException e) {
-			e.printStackTrace();
-		}
+        checkNetworkConnection(apiAddress());
+    }
+
+    private static void checkNetworkConnection(ApiAddress address) throws NetworkConnectionException {
+        long start = System.nanoTime();
+        boolean online = address.monitor.isOnline();
+        metrics.recordSince(WeatherMetrics.Stage.CONNECTIVITY_CHECK, start);
+        if (!online) {
+            metrics.networkFailure();
+            throw new NetworkConnectionException();
+        }
     }
     
     /**
-     * Method builds the URL string using the zip code format.
+     * Method checks a zip code against the offline gazetteer, without any network call.
+     * @return The city name of the zip code, or null if the gazetteer does not know it and only the API can tell.
+     * @throws InvalidZipCodeException if the zip or country code is malformed, or the gazetteer is complete for
+     * the country and does not know the zip code.
+     */
+    static String checkZipCode(String zip, String country) throws InvalidZipCodeException {
+        int record = locate(zip, country);
+        return record < 0 ? null : gazetteer.getCityName(record);
+    }
+
+    /**
+     * Method returns true if a country code is two ASCII letters, as ISO 3166 alpha-2 codes are.
      */
-    private void getWeatherDataByZipCode(boolean isForecast) {
-    	String serverName, forecastCount;
-        String temperatureFormat = "&units=imperial";
+    static boolean isCountryCode(String country) {
+        if (country == null || country.length() != 2) {
+            return false;
+        }
+        for (int i = 0; i < 2; i++) {
+            char c = country.charAt(i);
+            if (!(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method finds a zip code in the gazetteer. A zip code of a country the gazetteer is not complete for is left
+     * to the API when the gazetteer does not know it.
+     * @return The gazetteer record, or -1 if the gazetteer does not know the zip code.
+     * @throws InvalidZipCodeException if the zip or country code is malformed, or the gazetteer is complete for
+     * the country and does not know the zip code.
+     */
+    private static int locate(String zip, String country) throws InvalidZipCodeException {
+        if (zip == null || zip.isEmpty() || zip.length() > Gazetteer.ZIP_LENGTH || !isCountryCode(country)) {
+            throw new InvalidZipCodeException(zip, country);
+        }
+        for (int i = 0; i < zip.length(); i++) {
+            char c = zip.charAt(i);
+            if (!(c >= '0' && c <= '9' || c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c == ' ' || c == '-')) {
+                throw new InvalidZipCodeException(zip, country);
+            }
+        }
+        if (!gazetteer.isAvailable()) {
+            return -1;
+        }
+        int record = gazetteer.find(zip, country);
+        if (record < 0 && gazetteer.isComplete(country)) {
+            throw new InvalidZipCodeException(zip, country);
+        }
+        return record;
+    }
+
+    /**
+     * Method builds the URL string using the zip code format. Each call returns its own address so that
+     * several endpoints can be requested at the same time. With LOCATE_BY=coordinates a location found in the
+     * gazetteer is requested by its latitude and longitude instead. Zip and country code are URL encoded, a
+     * zip code may contain spaces.
+     */
+    private static String getWeatherDataByZipCode(WeatherConfig config, ApiAddress address,
+                                                  WeatherEndpoint endpoint, WireFormat format,
+                                                  String zip, String country) throws UnsupportedEncodingException {
+    	String countParameter;
+        String temperatureFormat = "&units=" + config.getUnits();
+        String apiKey = config.getApiKey();
     	
-    	if(isForecast) {
-    		serverName = "http://api.openweathermap.org/data/2.5/forecast";
-    		forecastCount = "&cnt=24";
+    	if(endpoint == WeatherEndpoint.FORECAST) {
+    		countParameter = "&cnt=" + FORECAST_SLOTS;
     	}
     	else {
-    		serverName = "http://api.openweathermap.org/data/2.5/weather";
-    		forecastCount = "";
+    		countParameter = "";
     	}
-        urlCallAddress = serverName +
-                CALL_BY_ZIPCODE +
-                zipCode +
-                "," +
-                countryCode +
-                DATA_FORMAT +
+        String location = CALL_BY_ZIPCODE + URLEncoder.encode(zip, "UTF-8") + ","
+                + URLEncoder.encode(country, "UTF-8");
+        if (config.isLocateByCoordinates() && gazetteer.isAvailable()) {
+            int record = gazetteer.find(zip, country);
+            if (record >= 0) {
+                location = CALL_BY_COORDINATES + gazetteer.getLatitude(record)
+                        + "&lon=" + gazetteer.getLongitude(record);
+            }
+        }
+        return address.baseUrl +
+                endpoint.getPath() +
+                location +
+                format.getModeParameter() +
                 temperatureFormat +
-                forecastCount +
-                API_KEY_PHRASE;
+                countParameter +
+                (apiKey == null ? "" : "&appid=" + apiKey);
     }
 
     /**
@@ -156,7 +629,7 @@ public class WeatherAPI {
      */
     public void setZipCode(String zipCode) {
         if (!zipCode.equals(this.zipCode)){
-            canUpdate = true;
+            refreshScheduler = new RefreshScheduler();
         }
         this.zipCode = zipCode;
     }
@@ -167,699 +640,235 @@ public class WeatherAPI {
      * @param countryCode ISO 3166 designated code for Country.
      */
     public void setCountryCode(String countryCode) {
+        if (!countryCode.equals(this.countryCode)){
+            refreshScheduler = new RefreshScheduler();
+        }
         this.countryCode = countryCode;
     }
+
+    /**
+     * Method returns the country code of the location.
+     */
+    public String getCountryCode() {
+        return countryCode;
+    }
     
+    /**
+     * Method returns the snapshot published by the last successful refresh.
+     * @return The snapshot, or null if the weather has not been fetched yet.
+     */
+    public WeatherSnapshot getSnapshot() {
+        return snapshot;
+    }
+
     /**
      * Method allows externally created objects of this class to retrieve the current temperature.
-     * @return "currentTemperature" String from the currentWeather Properties object.
+     * @return Current temperature from the snapshot.
      */
     public String getTemperature() {
-    	return currentWeather.getProperty("currentTemperature");
+    	return Float.toString(snapshot.getCurrent().getTemperature());
     }
     
     /**
      * The following two methods allow externally created objects of this class to retrieve
      * the minimum and maximum temperature for the current day plus one and the current
      * day plus two.
-     * @return "minTemperatureTodayPlusOne" String from the forecastWeather Properties
-     * object.
+     * @return Minimum temperature of the current day plus one from the snapshot.
      */
     public String getMinTempTodayPlusOne() {
-    	return forecastWeather.getProperty("minTemperatureTodayPlusOne");
+        DailyForecast day = getForecastDay(1);
+    	return day == null ? null : Float.toString(day.getMinTemperature());
     }
     
     /**
-     * @return "maxTemperatureTodayPlusOne" String from the forecastWeather Properties
-     * object.
+     * @return Maximum temperature of the current day plus one from the snapshot.
      */
     public String getMaxTempTodayPlusOne() {
-    	return forecastWeather.getProperty("maxTemperatureTodayPlusOne");
+        DailyForecast day = getForecastDay(1);
+    	return day == null ? null : Float.toString(day.getMaxTemperature());
     }
     
     /**
      * The following two methods allow externally created objects of this class to retrieve
      * the minimum and maximum temperature for the current day plus one and the current
      * day plus two.
-     * @return "minTemperatureTodayPlusTwo" String from the forecastWeather Properties
-     * object.
+     * @return Minimum temperature of the current day plus two from the snapshot.
      */
     public String getMinTempTodayPlusTwo() {
-    	return forecastWeather.getProperty("minTemperatureTodayPlusTwo");
+        DailyForecast day = getForecastDay(2);
+    	return day == null ? null : Float.toString(day.getMinTemperature());
     }
     
     /**
-     * @return "maxTemperatureTodayPlusTwo" String from the forecastWeather Properties
-     * object.
+     * @return Maximum temperature of the current day plus two from the snapshot.
      */
     public String getMaxTempTodayPlusTwo() {
-    	return forecastWeather.getProperty("maxTemperatureTodayPlusTwo");
+        DailyForecast day = getForecastDay(2);
+    	return day == null ? null : Float.toString(day.getMaxTemperature());
     }
     
     /**
      * Method allows externally created objects of this class to retrieve the chance of
      * precipitation for the current day.
-     * @return "precipitationChanceToday" String from the forecastWeather Properties
-     * object.
+     * @return Chance of precipitation of the current day from the snapshot, as a percentage.
      */
     public String getPrecipChanceToday() {
-    	return forecastWeather.getProperty("precipitationChanceToday");
+    	return WeatherText.formatPrecipitation(getForecastDay(0));
     }
     
     /**
      * The following two methods allow externally created objects of this class to retrieve
      * the chance of precipitation for the current day plus one and the current day plus two.
-     * @return "precipitationChanceTodayPlusOne" String from the forecastWeather
-     * Properties object.
+     * @return Chance of precipitation of the current day plus one from the snapshot.
      */
     public String getPrecipChanceTodayPlusOne() {
-    	return forecastWeather.getProperty("precipitationChanceTodayPlusOne");
+    	return WeatherText.formatPrecipitation(getForecastDay(1));
     }
     
     /**
-     * @return "precipitationChanceTodayPlusTwo" String from the forecastWeather
-     * Properties object.
+     * @return Chance of precipitation of the current day plus two from the snapshot.
      */
     public String getPrecipChanceTodayPlusTwo() {
-    	return forecastWeather.getProperty("precipitationChanceTodayPlusTwo");
+    	return WeatherText.formatPrecipitation(getForecastDay(2));
     }
     
     /**
      * Method allows externally created objects of this class to retrieve the humidity
      * for the current day.
-     * @return "humidity" String from the currentWeather Properties object.
+     * @return Current humidity from the snapshot.
      */
     public String getHumidity() {
-    	return currentWeather.getProperty("humidity");
+    	return Integer.toString(snapshot.getCurrent().getHumidity());
     }
     
     /**
      * The following two methods allow externally created objects of this class to retrieve
      * the chance maximum humidity for the current day plus one and the current day plus two.
-     * @return "maxHumidityTodayPlusOne" String from the forecastWeather Properties object.
+     * @return Maximum humidity of the current day plus one from the snapshot.
      */
     public String getHumidityTodayPlusOne() {
-    	return forecastWeather.getProperty("maxHumidityTodayPlusOne");
+        DailyForecast day = getForecastDay(1);
+    	return day == null ? null : Integer.toString(day.getHumidity());
     }
     
     /**
-     * @return "maxHumidityTodayPlusTwo" String from the forecastWeather Properties object.
+     * @return Maximum humidity of the current day plus two from the snapshot.
      */
     public String getHumidityTodayPlusTwo() {
-    	return forecastWeather.getProperty("maxHumidityTodayPlusTwo");
+        DailyForecast day = getForecastDay(2);
+    	return day == null ? null : Integer.toString(day.getHumidity());
     }
     
     /**
      * Method allows externally created objects of this class to retrieve the pressure
      * for the current day.
-     * @return "pressure" String from the currentWeather Properties object.
+     * @return Current pressure from the snapshot.
      */
     public String getPressure() {
-    	return currentWeather.getProperty("pressure");
+    	return Integer.toString(snapshot.getCurrent().getPressure());
     }
     
     /**
      * The following two methods allow externally created objects of this class to retrieve
      * the chance maximum pressure for the current day plus one and the current day plus two.
-     * @return "maxPressureTodayPlusOne" String from the forecastWeather Properties object.
+     * @return Maximum pressure of the current day plus one from the snapshot.
      */
     public String getPressureTodayPlusOne() {
-    	return forecastWeather.getProperty("maxPressureTodayPlusOne");
+        DailyForecast day = getForecastDay(1);
+    	return day == null ? null : Integer.toString(day.getPressure());
     }
     
     /**
-     * @return "maxPressureTodayPlusTwo" String from the forecastWeather Properties object.
+     * @return Maximum pressure of the current day plus two from the snapshot.
      */
     public String getPressureTodayPlusTwo() {
-    	return forecastWeather.getProperty("maxPressureTodayPlusTwo");
+        DailyForecast day = getForecastDay(2);
+    	return day == null ? null : Integer.toString(day.getPressure());
     }
     
     /**
      * Method allows externally created objects of this class to retrieve the 
      * weather type by name for today.
-     * @return "weatherValue" String from currentWeather Properties object.
+     * @return Name of the current condition from the snapshot.
      */
     public String getWeatherName() {
-    	return currentWeather.getProperty("weatherValue");
+    	return snapshot.getCurrent().getCondition().getDisplayName();
     }
     
     /**
      * The following two methods allow externally created objects of this class to
      * retrieve the weather type by name for the current day plus one and the
      * current day plus two.
-     * @return "todayPlusOneWeatherName" String from forecastWeather Properties
-     * object.
+     * @return Name of the dominant condition of the current day plus one from the snapshot.
      */
     public String getWeatherNameTodayPlusOne() {
-    	return forecastWeather.getProperty("todayPlusOneWeatherName");
+        DailyForecast day = getForecastDay(1);
+    	return day == null ? null : day.getCondition().getDisplayName();
     }
     
     /**
-     * @return "todayPlusTwoWeatherName" String from forecastWeather Properties
-     * object.
+     * @return Name of the dominant condition of the current day plus two from the snapshot.
      */
     public String getWeatherNameTodayPlusTwo() {
-    	return forecastWeather.getProperty("todayPlusTwoWeatherName");
+        DailyForecast day = getForecastDay(2);
+    	return day == null ? null : day.getCondition().getDisplayName();
     }
     
     /**
      * Method allows externally created objects of this class to retrieve the 
      * weather type by number for today.
-     * @return "weatherNumber" String from currentWeather Properties object.
+     * @return Code of the current condition from the snapshot.
      */
     public String getWeatherNum() {
-    	return currentWeather.getProperty("weatherNumber");
+    	return Integer.toString(snapshot.getCurrent().getCondition().getCode());
     }
     
     /**
      * The following two methods allow externally created objects of this class to
      * retrieve the weather type by number for the current day plus one and the
      * current day plus two.
-     * @return "todayPlusOneWeatherNum" String from forecastWeather Properties
-     * object.
+     * @return Code of the dominant condition of the current day plus one from the snapshot.
      */
     public String getWeatherNumTodayPlusOne() {
-    	return forecastWeather.getProperty("todayPlusOneWeatherNum");
+        DailyForecast day = getForecastDay(1);
+    	return day == null ? null : Integer.toString(day.getCondition().getCode());
     }
     
     /**
-     * @return "todayPlusTwoWeatherNum" String from forecastWeather Properties
-     * object.
+     * @return Code of the dominant condition of the current day plus two from the snapshot.
      */
     public String getWeatherNumTodayPlusTwo() {
-    	return forecastWeather.getProperty("todayPlusTwoWeatherNum");
+        DailyForecast day = getForecastDay(2);
+    	return day == null ? null : Integer.toString(day.getCondition().getCode());
     }
     
     /**
-     * Method allows externally created objects of this class to retrieve the "cityName" property
-     * from the "weather" Properties object.
+     * Method allows externally created objects of this class to retrieve the city name
+     * from the snapshot.
      */
     public String getCityName() {
-    	return currentWeather.getProperty("cityName");
+    	return snapshot.getCurrent().getCityName();
     }
 
     /**
-     * Method allows externally created objects of this class to retrieve the "lastUpdate" property
-     * from the "weather" Properties object.
+     * Method allows externally created objects of this class to retrieve the time of the last update
+     * of the current weather as an ISO local date time in UTC.
      */
-    public String getLastWeatherUpdate(){return currentWeather.getProperty("lastUpdate");}
-
-    /**
-     * Method allows externally created objects of this class to retrieve the "isEmpty" condition
-     * from the "weather" Properties object.
-     */
-    public Boolean getWeatherIsEmpty(){return currentWeather.isEmpty();}
-
-    /**
-     * Method sets internal LocalDateTime "currentTimeDate" variable of this class to the current time
-     * from the "WeatherTimeDate" Class.
-     */
-    public void setWeatherTimeDate(LocalDateTime input){
-        currentTimeDate = input;}
-
-}
-
-/**
- * Class reads the XML data stream, for the current day, using SAX Parser.
- */
-class UserHandler extends DefaultHandler {
-
-    private String cityID, cityName, longitude, latitude, country, timezone, sunrise, sunset, currentTemperature,
-            minimumTemperature, maximumTemperature, feelsLike, humidity, pressure, windSpeed, windName,
-            windDirectionValue, windDirectionCode, windDirectionName, cloudyValue, cloudyName, visibility,
-            precipitationMode, weatherNumber, weatherValue, weatherIcon, lastUpdate;
-    private boolean hasCountry, hasTimezone = false;
-    private final Properties weather = new Properties();
-
-    /**
-     * Method looks for specific string values in an XML document and then stores their associated values.
-     * @param uri The Namespace URI.
-     * @param localName The local name (without prefix).
-     * @param qName The qualified name (with prefix).
-     * @param attributes The attributes attached to the element.
-     */
-    @Override
-    public void startElement(String uri, String localName, String qName, Attributes attributes) {
-
-        if (qName.equalsIgnoreCase("city")) {
-            cityID = attributes.getValue("id");
-            cityName = attributes.getValue("name");
-        } else if (qName.equalsIgnoreCase("coord")) {
-            longitude = attributes.getValue("lon");
-            latitude = attributes.getValue("lat");
-        } else if (qName.equalsIgnoreCase("country")) {
-            hasCountry = true;
-        } else if (qName.equalsIgnoreCase("timezone")) {
-            hasTimezone = true;
-        } else if (qName.equalsIgnoreCase("sun")) {
-            sunrise = attributes.getValue("rise");
-            sunset = attributes.getValue("set");
-        } else if (qName.equalsIgnoreCase("temperature")) {
-            currentTemperature = attributes.getValue("value");
-            minimumTemperature = attributes.getValue("min");
-            maximumTemperature = attributes.getValue("max");
-        } else if (qName.equalsIgnoreCase("feels_like")) {
-            feelsLike = attributes.getValue("value");
-        } else if (qName.equalsIgnoreCase("humidity")) {
-            humidity = attributes.getValue("value");
-        } else if (qName.equalsIgnoreCase("pressure")) {
-            pressure = attributes.getValue("value");
-        } else if (qName.equalsIgnoreCase("speed")) {
-            windSpeed = attributes.getValue("value");
-            windName = attributes.getValue("name");
-        } else if (qName.equalsIgnoreCase("direction")) {
-            windDirectionValue = attributes.getValue("value");
-            windDirectionCode = attributes.getValue("code");
-            windDirectionName = attributes.getValue("name");
-        } else if (qName.equalsIgnoreCase("clouds")) {
-            cloudyValue = attributes.getValue("value");
-            cloudyName = attributes.getValue("name");
-        } else if (qName.equalsIgnoreCase("visibility")) {
-            visibility = attributes.getValue("value");
-        } else if (qName.equalsIgnoreCase("precipitation")) {
-            precipitationMode = attributes.getValue("mode");
-        } else if (qName.equalsIgnoreCase("weather")) {
-            weatherNumber = attributes.getValue("number");
-            weatherValue = attributes.getValue("value");
-            weatherIcon = attributes.getValue("icon");
-        } else if (qName.equalsIgnoreCase("lastupdate")) {
-            lastUpdate = attributes.getValue("value");
-        }
+    public String getLastWeatherUpdate(){
+        return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(
+                LocalDateTime.ofEpochSecond(snapshot.getCurrent().getLastUpdate(), 0, ZoneOffset.UTC));
     }
 
     /**
-     * Method reads in commented text in XML for country and timezone.
-     * @param ch The characters.
-     * @param start The start position in the character array.
-     * @param length The number of characters to use from the character array.
+     * Method allows externally created objects of this class to check whether any weather has been fetched.
      */
-    @Override
-    public void characters(char[] ch, int start, int length) {
-        if (hasCountry){
-            country = new String(ch, start, length);
-            hasCountry = false;
-        } else if (hasTimezone){
-            timezone = new String(ch, start, length);
-            hasTimezone = false;
-        }
-    }
+    public Boolean getWeatherIsEmpty(){return snapshot == null;}
 
     /**
-     * Method assigns all of the stored variables into the Parameter weather.
-     * @return Returns Properties of weather.
-     */
-    public Properties readWeather(){
-        weather.put("cityID", cityID);
-        weather.put("cityName", cityName);
-        weather.put("longitude", longitude);
-        weather.put("latitude", latitude);
-        weather.put("country", country);
-        weather.put("timezone", timezone);
-        weather.put("sunrise", sunrise);
-        weather.put("sunset", sunset);
-        weather.put("currentTemperature", currentTemperature);
-        weather.put("minimumTemperature", minimumTemperature);
-        weather.put("maximumTemperature", maximumTemperature);
-        weather.put("feelsLike", feelsLike);
-        weather.put("humidity", humidity);
-        weather.put("pressure", pressure);
-        weather.put("windSpeed", windSpeed);
-        weather.put("windName", windName);
-        //weather.put("windDirectionValue", windDirectionValue);
-        //weather.put("windDirectionCode", windDirectionCode);
-        //weather.put("windDirectionName", windDirectionName);
-        weather.put("cloudyValue", cloudyValue);
-        weather.put("cloudyName", cloudyName);
-        weather.put("visibility", visibility);
-        weather.put("precipitationMode", precipitationMode);
-        
-        int weatherNumI = Integer.parseInt(weatherNumber);
-        
-        if(weatherNumI >= 200 && weatherNumI <= 232) {
-        	weatherNumber = "211";
-        	weatherValue = "Thunderstorm";
-        }
-        else if(weatherNumI >= 300 && weatherNumI <= 321) {
-        	weatherNumber = "301";
-        	weatherValue = "Drizzle";
-        }
-        else if(weatherNumI >= 500 && weatherNumI <= 531) {
-        	weatherNumber = "501";
-        	weatherValue = "Rain";
-        }
-        else if(weatherNumI >= 600 && weatherNumI <= 622) {
-        	weatherNumber = "601";
-        	weatherValue = "Snow";
-        }
-        else if(weatherNumI >= 701 && weatherNumI <= 781) {
-        	weatherNumber = "701";
-        	weatherValue = "Mist";
-        }
-        else if(weatherNumI == 800) {
-        	weatherNumber = "800";
-        	weatherValue = "Clear Sky";
-        }
-        else if(weatherNumI >= 801 && weatherNumI <= 804) {
-        	weatherNumber = "801";
-        	weatherValue = "Cloudy";
-        }
-        
-        weather.put("weatherNumber", weatherNumber);
-        weather.put("weatherValue", weatherValue);
-        weather.put("weatherIcon", weatherIcon);
-        weather.put("lastUpdate", lastUpdate);
-
-        return weather;
-    }
-}
-
-/**
- * This class defines a custom exception that is instantiated in the event that the 
- * application is unable to establish a connection with the internet.
- */
-class NetworkConnectionException extends Exception {
-	private static final long serialVersionUID = 1L;
-
-	public NetworkConnectionException() {
-		super("No active internet connection. "
-				+ "Please establish a connection and try again.");
-	}
-}
-
-/**
- * Class reads the XML data stream, for the current day plus one and the current day plus
- * two, using SAX Parser.
- */
-class ForecastHandler extends DefaultHandler {
-    private final Properties weather = new Properties();
-    private final String[] temperature = new String[24];
-    private final String[] humidity = new String[24];
-    private final String[] pressure = new String[24];
-    private final String[] precipitation = new String[24];
-    private final String[] weatherNumber = new String[24];
-    //private String[] weatherName = new String[24];
-    private final String[] timeDate = new String[24];
-    private int incremental = 0;
-
-    /**
-     * Method looks for specific string values in an XML document and then stores their associated values.
-     * @param uri The Namespace URI.
-     * @param localName The local name (without prefix).
-     * @param qName The qualified name (with prefix).
-     * @param attributes The attributes attached to the element.
-     */
-    @Override
-    public void startElement(String uri, String localName, String qName, Attributes attributes) {
-        if (qName.equalsIgnoreCase("weatherData")){
-            incremental = 0;
-        } else if(qName.equalsIgnoreCase("time")){
-            timeDate[incremental] = attributes.getValue("from");
-        } else if(qName.equalsIgnoreCase("symbol")){
-            weatherNumber[incremental] = attributes.getValue("number");
-            //weatherName[incremental] = attributes.getValue("name");
-        } else if(qName.equalsIgnoreCase("precipitation")){
-            precipitation[incremental] = attributes.getValue("probability");
-        } else if (qName.equalsIgnoreCase("temperature")){
-            temperature[incremental] = attributes.getValue("value");
-        } else if (qName.equalsIgnoreCase("pressure")){
-            pressure[incremental] = attributes.getValue("value");
-        } else if (qName.equalsIgnoreCase("humidity")){
-            humidity[incremental] = attributes.getValue("value");
-        }
-    }
-
-    /**
-     * Method looks for "time" to know when the end of the document has been reached.
-     * @param uri The Namespace URI.
-     * @param localName The local name (without prefix).
-     * @param qName The qualified name (with prefix).
+     * Method returns the forecast for a day counted from the current local date of the location.
      */
-    @Override
-    public void endElement(String uri, String localName, String qName) {
-        if (qName.equalsIgnoreCase("time")) {
-                incremental++;
-        }
+    private DailyForecast getForecastDay(int daysFromToday) {
+        return snapshot.getForecastForDay(daysFromToday, System.currentTimeMillis() / 1000);
     }
 
-    /**
-     * Method assigns all of the stored variables into the Parameter weather.
-     * @return Returns Properties of weather.
-     */
-    public Properties readWeather(){
-        LocalDateTime localTime = LocalDateTime.now(ZoneOffset.UTC);
-        LocalDate today = localTime.toLocalDate();
-        LocalDate todayPlusOne = today.plusDays(1);
-        LocalDate todayPlusTwo = today.plusDays(2);
-        float maxTempToday = -1000.0f;
-        float minTempToday = 1000.0f;
-        float maxTempTodayPlusOne = -1000.0f;
-        float minTempTodayPlusOne = 1000.0f;
-        float maxTempTodayPlusTwo = -1000.0f;
-        float minTempTodayPlusTwo = 1000.0f;
-
-        //Min Max temperature per day
-        for (int i = 0; i < temperature.length; i++) {
-            String tempS = temperature[i];
-            float tempF = Float.parseFloat(tempS);
-
-            if (LocalDateTime.parse(timeDate[i],DateTimeFormatter.ISO_LOCAL_DATE_TIME).toLocalDate().equals(today)){
-                if (tempF > maxTempToday){
-                    maxTempToday = tempF;
-                } else if (tempF < minTempToday){
-                    minTempToday = tempF;
-                }
-            } else if (LocalDateTime.parse(timeDate[i],DateTimeFormatter.ISO_LOCAL_DATE_TIME).toLocalDate().equals(todayPlusOne)){
-                if (tempF > maxTempTodayPlusOne){
-                    maxTempTodayPlusOne = tempF;
-                } else if (tempF < minTempTodayPlusOne){
-                    minTempTodayPlusOne = tempF;
-                }
-            } else if (LocalDateTime.parse(timeDate[i],DateTimeFormatter.ISO_LOCAL_DATE_TIME).toLocalDate().equals(todayPlusTwo)){
-                if (tempF > maxTempTodayPlusTwo){
-                    maxTempTodayPlusTwo = tempF;
-                } else if (tempF < minTempTodayPlusTwo){
-                    minTempTodayPlusTwo = tempF;
-                }
-            }
-        }
-        weather.put("maxTemperatureTodayPlusOne", Float.toString(maxTempTodayPlusOne));
-        weather.put("maxTemperatureTodayPlusTwo", Float.toString(maxTempTodayPlusTwo));
-        weather.put("minTemperatureTodayPlusOne", Float.toString(minTempTodayPlusOne));
-        weather.put("minTemperatureTodayPlusTwo", Float.toString(minTempTodayPlusTwo));
-
-        //Precipitation chance per day
-        float precipProbabilityToday = 0.0f;
-        float precipProbabilityTodayPlusOne = 0.0f;
-        float precipProbabilityTodayPlusTwo = 0.0f;
-        NumberFormat defaultFormat = NumberFormat.getPercentInstance();
-        defaultFormat.setMinimumFractionDigits(1);
-
-        for (int i = 0; i < precipitation.length; i++) {
-            String precipS = precipitation[i];
-            float precipF = Float.parseFloat(precipS);
-
-            if (LocalDateTime.parse(timeDate[i],DateTimeFormatter.ISO_LOCAL_DATE_TIME).toLocalDate().equals(today)){
-                if(precipF > precipProbabilityToday){
-                    precipProbabilityToday = precipF;
-                }
-            }else if (LocalDateTime.parse(timeDate[i],DateTimeFormatter.ISO_LOCAL_DATE_TIME).toLocalDate().equals(todayPlusOne)){
-                if(precipF > precipProbabilityTodayPlusOne){
-                    precipProbabilityTodayPlusOne = precipF;
-                }
-            }else if (LocalDateTime.parse(timeDate[i],DateTimeFormatter.ISO_LOCAL_DATE_TIME).toLocalDate().equals(todayPlusTwo)){
-                if(precipF > precipProbabilityTodayPlusTwo){
-                    precipProbabilityTodayPlusTwo= precipF;
-                }
-            }
-        }
-
-        weather.put("precipitationChanceToday", defaultFormat.format(precipProbabilityToday));
-        weather.put("precipitationChanceTodayPlusOne", defaultFormat.format(precipProbabilityTodayPlusOne));
-        weather.put("precipitationChanceTodayPlusTwo", defaultFormat.format(precipProbabilityTodayPlusTwo));
-
-        //humidity
-        String humidityS;
-        float humidityF, maxHumidityTodayPlusOne = 0, maxHumidityTodayPlusTwo = 0;
-        
-        for(int i = 8; i < humidity.length; i++) {
-        	humidityS = humidity[i];
-        	humidityF = Float.parseFloat(humidityS);
-        	
-        	if (LocalDateTime.parse(timeDate[i],DateTimeFormatter.ISO_LOCAL_DATE_TIME).toLocalDate().equals(todayPlusOne)){
-            	if(humidityF > maxHumidityTodayPlusOne) {
-            		maxHumidityTodayPlusOne = humidityF;
-            	}
-            } else if (LocalDateTime.parse(timeDate[i],DateTimeFormatter.ISO_LOCAL_DATE_TIME).toLocalDate().equals(todayPlusTwo)){
-            	if(humidityF > maxHumidityTodayPlusTwo) {
-            		maxHumidityTodayPlusTwo = humidityF;
-            	}
-            }
-        }
-        
-        weather.put("maxHumidityTodayPlusOne", Float.toString(maxHumidityTodayPlusOne));
-        weather.put("maxHumidityTodayPlusTwo", Float.toString(maxHumidityTodayPlusTwo));
-        
-        //pressure
-        String pressureS;
-        int pressureI, maxPressureTodayPlusOne = 0, maxPressureTodayPlusTwo = 0;
-        
-        for(int i = 8; i < pressure.length; i++) {
-        	pressureS = pressure[i];
-        	pressureI = Integer.parseInt(pressureS);
-        	
-	        if (LocalDateTime.parse(timeDate[i],DateTimeFormatter.ISO_LOCAL_DATE_TIME).toLocalDate().equals(todayPlusOne)){
-	        	if(pressureI > maxPressureTodayPlusOne) {
-	        		maxPressureTodayPlusOne = pressureI;
-	        	}
-	        } else if (LocalDateTime.parse(timeDate[i],DateTimeFormatter.ISO_LOCAL_DATE_TIME).toLocalDate().equals(todayPlusTwo)){
-	        	if(pressureI > maxPressureTodayPlusTwo) {
-	        		maxPressureTodayPlusTwo = pressureI;
-	        	}
-	        }
-        }
-        
-        weather.put("maxPressureTodayPlusOne", Integer.toString(maxPressureTodayPlusOne));
-        weather.put("maxPressureTodayPlusTwo", Integer.toString(maxPressureTodayPlusTwo));
-        
-        //weather name & weather number
-        String weatherNumS;
-        int weatherNumI;
-        int[] todayPlusOneCounter = {0, 0, 0, 0, 0, 0, 0}, 
-        		todayPlusTwoCounter = {0, 0, 0, 0, 0, 0, 0};
-        
-        for(int i = 8; i < weatherNumber.length; i++) {
-        	weatherNumS = weatherNumber[i];
-        	weatherNumI = Integer.parseInt(weatherNumS);
-        	
-	        if (LocalDateTime.parse(timeDate[i],DateTimeFormatter.ISO_LOCAL_DATE_TIME).toLocalDate().equals(todayPlusOne)){
-	        	if(weatherNumI >= 200 && weatherNumI <= 232) {
-	    			todayPlusOneCounter[0]++;
-	    		}
-	    		else if(weatherNumI >= 300 && weatherNumI <= 321) {
-	    			todayPlusOneCounter[1]++;
-	    		}
-	    		else if(weatherNumI >= 500 && weatherNumI <= 531) {
-	    			todayPlusOneCounter[2]++;
-	    		}
-	    		else if(weatherNumI >= 600 && weatherNumI <= 622) {
-	    			todayPlusOneCounter[3]++;
-	    		}
-	    		else if(weatherNumI >= 701 && weatherNumI <= 781) {
-	    			todayPlusOneCounter[4]++;
-	    		}
-	    		else if(weatherNumI == 800) {
-	    			todayPlusOneCounter[5]++;
-	    		}
-	    		else if(weatherNumI >= 801 && weatherNumI <= 804) {
-	    			todayPlusOneCounter[6]++;
-	    		}
-	        } else if (LocalDateTime.parse(timeDate[i],DateTimeFormatter.ISO_LOCAL_DATE_TIME).toLocalDate().equals(todayPlusTwo)){
-	        	if(weatherNumI >= 200 && weatherNumI <= 232) {
-	    			todayPlusTwoCounter[0]++;
-	    		}
-	    		else if(weatherNumI >= 300 && weatherNumI <= 321) {
-	    			todayPlusTwoCounter[1]++;
-	    		}
-	    		else if(weatherNumI >= 500 && weatherNumI <= 531) {
-	    			todayPlusTwoCounter[2]++;
-	    		}
-	    		else if(weatherNumI >= 600 && weatherNumI <= 622) {
-	    			todayPlusTwoCounter[3]++;
-	    		}
-	    		else if(weatherNumI >= 701 && weatherNumI <= 781) {
-	    			todayPlusTwoCounter[4]++;
-	    		}
-	    		else if(weatherNumI == 800) {
-	    			todayPlusTwoCounter[5]++;
-	    		}
-	    		else if(weatherNumI >= 801 && weatherNumI <= 804) {
-	    			todayPlusTwoCounter[6]++;
-	    		}
-	        }
-        }
-        
-        int maxTodayPlusOne = 0, maxTodayPlusOneIndex = 0, 
-        		maxTodayPlusTwo = 0, maxTodayPlusTwoIndex = 0;
-        String todayPlusOneWeatherName = null, todayPlusTwoWeatherName = null, 
-        		todayPlusOneWeatherNum = null, todayPlusTwoWeatherNum = null;
-        
-      	for(int i = 0; i < 7; i++) {
-      		if(todayPlusOneCounter[i] > maxTodayPlusOne) {
-      			maxTodayPlusOne = todayPlusOneCounter[i];
-      			maxTodayPlusOneIndex = i;
-      		}
-      		
-      		if(todayPlusTwoCounter[i] > maxTodayPlusTwo) {
-      			maxTodayPlusTwo = todayPlusTwoCounter[i];
-      			maxTodayPlusTwoIndex = i;
-      		}
-      	}
-      	
-      	if(maxTodayPlusOneIndex == 0) {
-      		todayPlusOneWeatherNum = "211";
-      		todayPlusOneWeatherName = "Thunderstorm";
-      	}
-      	else if(maxTodayPlusOneIndex == 1) {
-      		todayPlusOneWeatherNum = "301";
-      		todayPlusOneWeatherName = "Drizzle";
-      	}
-      	else if(maxTodayPlusOneIndex == 2) {
-      		todayPlusOneWeatherNum = "501";
-      		todayPlusOneWeatherName = "Rain";
-      	}
-      	else if(maxTodayPlusOneIndex == 3) {
-      		todayPlusOneWeatherNum = "601";
-      		todayPlusOneWeatherName = "Snow";
-      	}
-      	else if(maxTodayPlusOneIndex == 4) {
-      		todayPlusOneWeatherNum = "701";
-      		todayPlusOneWeatherName = "Mist";
-      	}
-      	else if(maxTodayPlusOneIndex == 5) {
-      		todayPlusOneWeatherNum = "800";
-      		todayPlusOneWeatherName = "Clear Sky";
-      	}
-      	else if(maxTodayPlusOneIndex == 6) {
-      		todayPlusOneWeatherNum = "801";
-      		todayPlusOneWeatherName = "Cloudy";
-      	}
-      	
-      	if(maxTodayPlusTwoIndex == 0) {
-      		todayPlusTwoWeatherNum = "211";
-      		todayPlusTwoWeatherName = "Thunderstorm";
-      	}
-      	else if(maxTodayPlusTwoIndex == 1) {
-      		todayPlusTwoWeatherNum = "301";
-      		todayPlusTwoWeatherName = "Drizzle";
-      	}
-      	else if(maxTodayPlusTwoIndex == 2) {
-      		todayPlusTwoWeatherNum = "501";
-      		todayPlusTwoWeatherName = "Rain";
-      	}
-      	else if(maxTodayPlusTwoIndex == 3) {
-      		todayPlusTwoWeatherNum = "601";
-      		todayPlusTwoWeatherName = "Snow";
-      	}
-      	else if(maxTodayPlusTwoIndex == 4) {
-      		todayPlusTwoWeatherNum = "701";
-      		todayPlusTwoWeatherName = "Mist";
-      	}
-      	else if(maxTodayPlusTwoIndex == 5) {
-      		todayPlusTwoWeatherNum = "800";
-      		todayPlusTwoWeatherName = "Clear Sky";
-      	}
-      	else if(maxTodayPlusTwoIndex == 6) {
-      		todayPlusTwoWeatherNum = "801";
-      		todayPlusTwoWeatherName = "Cloudy";
-      	}
-        
-        weather.put("todayPlusOneWeatherName", todayPlusOneWeatherName);
-        weather.put("todayPlusTwoWeatherName", todayPlusTwoWeatherName);
-        weather.put("todayPlusOneWeatherNum", todayPlusOneWeatherNum);
-        weather.put("todayPlusTwoWeatherNum", todayPlusTwoWeatherNum);
-        
-        return weather;
-    }
 }
-
-
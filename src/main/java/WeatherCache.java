@@ -0,0 +1,218 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Class stores the raw responses of the Open Weather Map API in a local directory so that a location that was
+ * looked up recently, or before the application was restarted, can be served without calling the API again.
+ * Entries are keyed by endpoint, wire format, zip code, country code and a variant holding the other settings
+ * the response depends on, and expire after the TTL of their endpoint. The ETag and Last-Modified validators of a response are stored in the same file as the body, so an
+ * expired entry can be revalidated with a conditional request instead of being downloaded again, and a reader
+ * never pairs the validators of one response with the body of another.
+ *
+ * Entry file layout: magic "WCE1", ETag and Last-Modified as DataOutputStream UTF strings, empty if the server
+ * sent none, then the response body.
+ */
+class WeatherCache {
+    private static final int MAGIC = 0x57434531;
+    private final Path directory;
+
+    /**
+     * Default cache directory is ".weather_app/cache" in the user's home directory. It can be changed with the
+     * "weather.cache.dir" system property.
+     */
+    WeatherCache() {
+        this(Paths.get(System.getProperty("weather.cache.dir",
+                Paths.get(System.getProperty("user.home"), ".weather_app", "cache").toString())));
+    }
+
+    WeatherCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Class holds a cached response together with its validators and its age.
+     */
+    static final class Entry {
+        private final byte[] body;
+        private final String etag;
+        private final String lastModified;
+        private final long ageMillis;
+
+        Entry(byte[] body, String etag, String lastModified, long ageMillis) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.ageMillis = ageMillis;
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * Method returns the ETag sent with the response, or null if the server sent none.
+         */
+        String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Method returns the Last-Modified value sent with the response, or null if the server sent none.
+         */
+        String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Method returns how long ago the entry was stored or last revalidated.
+         */
+        long getAgeMillis() {
+            return ageMillis;
+        }
+    }
+
+    /**
+     * Method returns the cached response for the location whether or not it has expired.
+     * @param endpoint Endpoint the response was fetched from.
+     * @param format Format of the response.
+     * @param zipCode Zip code of the location.
+     * @param countryCode Country code of the location.
+     * @param variant Settings the response depends on besides the location, such as the units.
+     * @return The entry, or null if nothing is cached.
+     */
+    Entry getEntry(WeatherEndpoint endpoint, WireFormat format, String zipCode, String countryCode,
+                   String variant) {
+        Path entry = entryPath(endpoint, format, zipCode, countryCode, variant);
+        try {
+            long ageMillis = System.currentTimeMillis() - Files.getLastModifiedTime(entry).toMillis();
+            byte[] content = Files.readAllBytes(entry);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+            if (content.length < 4 || in.readInt() != MAGIC) {
+                // written by an older version, downloaded again
+                return null;
+            }
+            String etag = in.readUTF();
+            String lastModified = in.readUTF();
+            byte[] body = new byte[in.available()];
+            in.readFully(body);
+            return new Entry(body, etag.isEmpty() ? null : etag, lastModified.isEmpty() ? null : lastModified,
+                    ageMillis);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Method stores a response for the location together with the validators the server sent with it. The entry
+     * is written to a temporary file first and then moved into place so that a reader never sees a partially
+     * written entry.
+     * @param endpoint Endpoint the response was fetched from.
+     * @param format Format of the response.
+     * @param zipCode Zip code of the location.
+     * @param countryCode Country code of the location.
+     * @param variant Settings the response depends on besides the location, such as the units.
+     * @param body Response body.
+     * @param etag ETag of the response, or null.
+     * @param lastModified Last-Modified value of the response, or null.
+     */
+    void put(WeatherEndpoint endpoint, WireFormat format, String zipCode, String countryCode, String variant,
+             byte[] body, String etag, String lastModified) {
+        Path entry = entryPath(endpoint, format, zipCode, countryCode, variant);
+        try {
+            ByteArrayOutputStream content = new ByteArrayOutputStream(body.length + 128);
+            try (DataOutputStream out = new DataOutputStream(content)) {
+                out.writeInt(MAGIC);
+                out.writeUTF(etag == null ? "" : etag);
+                out.writeUTF(lastModified == null ? "" : lastModified);
+                out.write(body);
+            }
+            Files.createDirectories(directory);
+            writeAtomically(entry, content.toByteArray());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Method restarts the TTL of an entry, used when the server confirmed with 304 Not Modified that the
+     * cached response is still current.
+     */
+    void touch(WeatherEndpoint endpoint, WireFormat format, String zipCode, String countryCode, String variant) {
+        try {
+            Files.setLastModifiedTime(entryPath(endpoint, format, zipCode, countryCode, variant),
+                    FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            // removed in the meantime, the next call downloads it again
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void writeAtomically(Path target, byte[] content) throws IOException {
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Method builds the file name of an entry. Any character of the zip or country code that is not a letter
+     * or digit is escaped so user input can never leave the cache directory or collide with another key. The
+     * variant, which may be as long as a URL, is added as a 64 bit hash.
+     */
+    private Path entryPath(WeatherEndpoint endpoint, WireFormat format, String zipCode, String countryCode,
+                           String variant) {
+        StringBuilder name = new StringBuilder(endpoint.getPath()).append('_');
+        escape(zipCode, name);
+        name.append('_');
+        escape(countryCode.toLowerCase(), name);
+        name.append('_').append(Long.toHexString(hash(variant)));
+        return directory.resolve(name.append('.').append(format.getExtension()).toString());
+    }
+
+    /**
+     * Method returns the 64 bit FNV-1a hash of a string.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Method appends a value to a file name, every character that is not a letter or digit escaped.
+     */
+    static void escape(String value, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                out.append(c);
+            } else {
+                out.append('-').append(Integer.toHexString(c)).append('-');
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Class provides the time and date labels of the application from one shared clock. The labels are formatted once
+ * at the start of every minute on a daemon scheduler, with formatters that are built once, and the date labels are
+ * only formatted again when the date changes. Reading the labels never formats anything, and listeners are told
+ * about every new minute so the GUI stays correct across midnight.
+ */
+final class WeatherClock {
+    private static final long MINUTE_MILLIS = 60_000;
+    private static final WeatherClock INSTANCE = new WeatherClock(Clock.systemDefaultZone());
+
+    private final Clock clock;
+    private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT);
+    private final DateTimeFormatter timeFormatter = DateTimeFormatter.ofLocalizedTime(FormatStyle.SHORT);
+    private final List<Consumer<Tick>> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "weather-clock");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Tick current;
+
+    /**
+     * Class holds the labels of one minute.
+     */
+    static final class Tick {
+        private final LocalDate date;
+        private final String timeDate;
+        private final String dayOne;
+        private final String dayTwo;
+        private final String dayThree;
+
+        Tick(LocalDate date, String timeDate, String dayOne, String dayTwo, String dayThree) {
+            this.date = date;
+            this.timeDate = timeDate;
+            this.dayOne = dayOne;
+            this.dayTwo = dayTwo;
+            this.dayThree = dayThree;
+        }
+
+        LocalDate getDate() {
+            return date;
+        }
+
+        /**
+         * Method returns the local time and date, for example "Time: 3:45 PM  Date: 10/18/20".
+         */
+        String getTimeDate() {
+            return timeDate;
+        }
+
+        /**
+         * Method returns today's date, for example "Date: 10/18/20".
+         */
+        String getDayOne() {
+            return dayOne;
+        }
+
+        /**
+         * Method returns tomorrow's date.
+         */
+        String getDayTwo() {
+            return dayTwo;
+        }
+
+        /**
+         * Method returns the date of the day after tomorrow.
+         */
+        String getDayThree() {
+            return dayThree;
+        }
+    }
+
+    WeatherClock(Clock clock) {
+        this.clock = clock;
+        current = format(LocalDateTime.now(clock), null);
+        scheduleNextTick();
+    }
+
+    /**
+     * Method returns the clock of the application.
+     */
+    static WeatherClock getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Method returns the labels of the current minute.
+     */
+    Tick getCurrent() {
+        return current;
+    }
+
+    /**
+     * Method registers a listener that receives the labels now and at the start of every following minute.
+     * Listeners run on the clock thread and must hand GUI work to the FX Application Thread.
+     */
+    void addListener(Consumer<Tick> listener) {
+        listeners.add(listener);
+        listener.accept(current);
+    }
+
+    void removeListener(Consumer<Tick> listener) {
+        listeners.remove(listener);
+    }
+
+    private void tick() {
+        try {
+            Tick tick = format(LocalDateTime.now(clock), current);
+            current = tick;
+            for (Consumer<Tick> listener : listeners) {
+                try {
+                    listener.accept(tick);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        } finally {
+            scheduleNextTick();
+        }
+    }
+
+    /**
+     * Method schedules the next tick just after the start of the next minute. The delay is computed from the
+     * clock every time so the ticks do not drift.
+     */
+    private void scheduleNextTick() {
+        long delay = MINUTE_MILLIS - clock.millis() % MINUTE_MILLIS + 5;
+        scheduler.schedule(this::tick, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Method formats the labels of a minute, the date labels of the previous tick are reused on the same date.
+     */
+    private Tick format(LocalDateTime now, Tick previous) {
+        LocalDate date = now.toLocalDate();
+        String dayOne, dayTwo, dayThree;
+        if (previous != null && previous.date.equals(date)) {
+            dayOne = previous.dayOne;
+            dayTwo = previous.dayTwo;
+            dayThree = previous.dayThree;
+        } else {
+            dayOne = "Date: " + date.format(dateFormatter);
+            dayTwo = "Date: " + date.plusDays(1).format(dateFormatter);
+            dayThree = "Date: " + date.plusDays(2).format(dateFormatter);
+        }
+        String timeDate = "Time: " + now.toLocalTime().format(timeFormatter) + "  " + dayOne;
+        return new Tick(date, timeDate, dayOne, dayTwo, dayThree);
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Enum lists the condition groups shown by the application. Each Open Weather Map condition code belongs to
+ * one group, the declaration order is also the order used to break ties, most severe first.
+ */
+public enum WeatherCondition {
+    THUNDERSTORM(211, "Thunderstorm"),
+    DRIZZLE(301, "Drizzle"),
+    RAIN(501, "Rain"),
+    SNOW(601, "Snow"),
+    MIST(701, "Mist"),
+    CLEAR_SKY(800, "Clear Sky"),
+    CLOUDY(801, "Cloudy"),
+    UNKNOWN(0, "Unknown");
+
+    private static final WeatherCondition[] VALUES = values();
+    private final int code;
+    private final String displayName;
+
+    WeatherCondition(int code, String displayName) {
+        this.code = code;
+        this.displayName = displayName;
+    }
+
+    /**
+     * Method maps an Open Weather Map condition code to its group.
+     * @param weatherNumber Condition code from the API, for example 500 for light rain.
+     * @return The condition group, UNKNOWN for codes outside the known groups.
+     */
+    public static WeatherCondition fromCode(int weatherNumber) {
+        if (weatherNumber >= 200 && weatherNumber <= 232) {
+            return THUNDERSTORM;
+        } else if (weatherNumber >= 300 && weatherNumber <= 321) {
+            return DRIZZLE;
+        } else if (weatherNumber >= 500 && weatherNumber <= 531) {
+            return RAIN;
+        } else if (weatherNumber >= 600 && weatherNumber <= 622) {
+            return SNOW;
+        } else if (weatherNumber >= 701 && weatherNumber <= 781) {
+            return MIST;
+        } else if (weatherNumber == 800) {
+            return CLEAR_SKY;
+        } else if (weatherNumber >= 801 && weatherNumber <= 804) {
+            return CLOUDY;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Method returns the condition with the given ordinal without copying the values array.
+     */
+    static WeatherCondition fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Method returns the representative condition code of the group.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Method returns the name of the group shown in the GUI.
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+}
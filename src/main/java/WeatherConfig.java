@@ -0,0 +1,176 @@
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Properties;
+
+/**
+ * Class holds one loaded version of the application settings. Instances are immutable, so they can be read from
+ * any thread without locking and a new version is published by replacing the whole object. Values missing from
+ * the properties file fall back to the defaults below.
+ *
+ * Keys: API_KEY, BASE_URL, UNITS, CURRENT_TTL_SECONDS, FORECAST_TTL_SECONDS, BATCH_CONCURRENCY, QUOTA_PER_MINUTE,
+ * QUOTA_PER_DAY, LOCATE_BY
+ */
+final class WeatherConfig {
+    static final String DEFAULT_BASE_URL = "http://api.openweathermap.org/data/2.5/";
+    static final String DEFAULT_UNITS = "imperial";
+    static final String DEFAULT_LOCATE_BY = "zip";
+    static final int DEFAULT_BATCH_CONCURRENCY = 16;
+    // limits of the free Open Weather Map plan: 60 calls a minute and 1,000,000 calls a month
+    static final int DEFAULT_QUOTA_PER_MINUTE = 60;
+    static final int DEFAULT_QUOTA_PER_DAY = 32_000;
+
+    private final String apiKey;
+    private final String baseUrl;
+    private final String units;
+    private final long currentTtlSeconds;
+    private final long forecastTtlSeconds;
+    private final int batchConcurrency;
+    private final int quotaPerMinute;
+    private final int quotaPerDay;
+    private final boolean locateByCoordinates;
+
+    private WeatherConfig(String apiKey, String baseUrl, String units, long currentTtlSeconds,
+                          long forecastTtlSeconds, int batchConcurrency, int quotaPerMinute, int quotaPerDay,
+                          boolean locateByCoordinates) {
+        this.apiKey = apiKey;
+        this.baseUrl = baseUrl;
+        this.units = units;
+        this.currentTtlSeconds = currentTtlSeconds;
+        this.forecastTtlSeconds = forecastTtlSeconds;
+        this.batchConcurrency = batchConcurrency;
+        this.quotaPerMinute = quotaPerMinute;
+        this.quotaPerDay = quotaPerDay;
+        this.locateByCoordinates = locateByCoordinates;
+    }
+
+    /**
+     * Method returns the settings used when no properties file exists.
+     */
+    static WeatherConfig defaults() {
+        return fromProperties(new Properties());
+    }
+
+    /**
+     * Method builds the settings from a properties file. The "weather.api.url" system property takes precedence
+     * over BASE_URL.
+     * @throws IllegalArgumentException if a value is invalid, for example a TTL that is not a number.
+     */
+    static WeatherConfig fromProperties(Properties properties) {
+        String apiKey = trimmed(properties, "API_KEY", null);
+        String baseUrl = System.getProperty("weather.api.url", trimmed(properties, "BASE_URL", DEFAULT_BASE_URL));
+        String units = trimmed(properties, "UNITS", DEFAULT_UNITS);
+        if (!units.equals("imperial") && !units.equals("metric") && !units.equals("standard")) {
+            throw new IllegalArgumentException("UNITS must be imperial, metric or standard: " + units);
+        }
+        String locateBy = trimmed(properties, "LOCATE_BY", DEFAULT_LOCATE_BY);
+        if (!locateBy.equals("zip") && !locateBy.equals("coordinates")) {
+            throw new IllegalArgumentException("LOCATE_BY must be zip or coordinates: " + locateBy);
+        }
+        return new WeatherConfig(apiKey, normalizeBaseUrl(baseUrl), units,
+                positive(properties, "CURRENT_TTL_SECONDS", WeatherEndpoint.CURRENT.getTtlSeconds()),
+                positive(properties, "FORECAST_TTL_SECONDS", WeatherEndpoint.FORECAST.getTtlSeconds()),
+                (int) positive(properties, "BATCH_CONCURRENCY", DEFAULT_BATCH_CONCURRENCY),
+                (int) positive(properties, "QUOTA_PER_MINUTE", DEFAULT_QUOTA_PER_MINUTE),
+                (int) positive(properties, "QUOTA_PER_DAY", DEFAULT_QUOTA_PER_DAY),
+                locateBy.equals("coordinates"));
+    }
+
+    /**
+     * Method checks that a base URL is a valid http or https URL and makes it end with "/".
+     * @throws IllegalArgumentException if the URL is not valid.
+     */
+    static String normalizeBaseUrl(String url) {
+        URL parsed;
+        try {
+            parsed = new URL(url);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid API base URL: " + url, e);
+        }
+        if (!"http".equals(parsed.getProtocol()) && !"https".equals(parsed.getProtocol())) {
+            throw new IllegalArgumentException("Invalid API base URL: " + url);
+        }
+        return url.endsWith("/") ? url : url + "/";
+    }
+
+    /**
+     * Method returns the Open Weather Map API key, or null if none is configured.
+     */
+    String getApiKey() {
+        return apiKey;
+    }
+
+    /**
+     * Method returns the URL the endpoint names are appended to, always ending with "/".
+     */
+    String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Method returns the units requested from the API: imperial, metric or standard.
+     */
+    String getUnits() {
+        return units;
+    }
+
+    /**
+     * Method returns how many seconds a cached response from an endpoint may be reused.
+     */
+    long getTtlSeconds(WeatherEndpoint endpoint) {
+        return endpoint == WeatherEndpoint.CURRENT ? currentTtlSeconds : forecastTtlSeconds;
+    }
+
+    /**
+     * Method returns how many zip codes the batch runner fetches at once when no limit is given.
+     */
+    int getBatchConcurrency() {
+        return batchConcurrency;
+    }
+
+    /**
+     * Method returns how many API calls the whole process may make in any minute.
+     */
+    int getQuotaPerMinute() {
+        return quotaPerMinute;
+    }
+
+    /**
+     * Method returns how many API calls the whole process may make in any 24 hours.
+     */
+    int getQuotaPerDay() {
+        return quotaPerDay;
+    }
+
+    /**
+     * Method returns true if locations found in the gazetteer should be requested by latitude and longitude
+     * instead of by zip code.
+     */
+    boolean isLocateByCoordinates() {
+        return locateByCoordinates;
+    }
+
+    private static String trimmed(Properties properties, String name, String defaultValue) {
+        String value = properties.getProperty(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return value.trim();
+    }
+
+    private static long positive(Properties properties, String name, long defaultValue) {
+        String value = trimmed(properties, name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        long number;
+        try {
+            number = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number: " + value, e);
+        }
+        if (number < 1 || number > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return number;
+    }
+}
@@ -0,0 +1,207 @@
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dashboard that shows the weather of many saved locations as tiles in one scrolling list. The list is
+ * virtualized, only the tiles on screen have JavaFX nodes and they are reused while scrolling, so a location that
+ * is not visible costs only its last WeatherSnapshot and the prepared text of its tile.
+ *
+ * Every location refreshes on its own schedule on a small pool of background threads. The first refreshes are
+ * spread evenly over one period so the locations do not all call the API at once. After that a RefreshScheduler
+ * per location times each refresh for just after the API is expected to publish new data for it, and the period
+ * is only the longest time between two refreshes of a location. Finished refreshes are collected and handed to
+ * the FX Application Thread in one Platform.runLater() per frame instead of one per location.
+ *
+ * Usage: WeatherDashboard <locations file> [--period minutes] [--threads n]
+ *
+ * The locations file has one location per line as "zip[,country[,name]]", for example "10001,us,New York".
+ */
+public class WeatherDashboard extends Application {
+    private static final int ICON_SIZE = 48;
+    private static List<DashboardLocation> locations;
+    private static long periodMillis = TimeUnit.MINUTES.toMillis(10);
+    private static int threads = 4;
+
+    private final ObservableList<DashboardLocation.State> tiles = FXCollections.observableArrayList();
+    private final Queue<Integer> changed = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private RefreshScheduler[] refreshSchedulers;
+    private ScheduledExecutorService scheduler;
+
+    public static void main(String[] args) throws IOException {
+        String file = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--period":
+                    periodMillis = TimeUnit.MINUTES.toMillis(Long.parseLong(args[++i]));
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    file = args[i];
+            }
+        }
+        if (file == null || periodMillis < 1 || threads < 1) {
+            System.err.println("Usage: WeatherDashboard <locations file> [--period minutes] [--threads n]");
+            System.exit(2);
+        }
+        locations = DashboardLocation.load(Paths.get(file));
+        launch(args);
+    }
+
+    @Override
+    public void start(Stage stage) {
+        WeatherIcons.preload();
+
+        List<DashboardLocation.State> initial = new ArrayList<>(locations.size());
+        for (DashboardLocation location : locations) {
+            initial.add(location.getState());
+        }
+        tiles.setAll(initial);
+
+        ListView<DashboardLocation.State> list = new ListView<>(tiles);
+        list.setCellFactory(view -> new TileCell());
+        // every tile has the same height, the list then does not have to measure rows while scrolling
+        list.setFixedCellSize(ICON_SIZE + 16);
+
+        stage.setTitle("Weather Dashboard - " + locations.size() + " locations");
+        stage.setScene(new Scene(list, 720, 640));
+        stage.show();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-refresh-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int count = locations.size();
+        refreshSchedulers = new RefreshScheduler[count];
+        for (int i = 0; i < count; i++) {
+            refreshSchedulers[i] = new RefreshScheduler(periodMillis);
+            int index = i;
+            scheduler.schedule(() -> refresh(index), periodMillis * i / count, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Method runs on a refresh thread. It fetches the weather of one location, publishes it to the location
+     * and schedules the next refresh of the location when its RefreshScheduler expects new data.
+     */
+    private void refresh(int index) {
+        DashboardLocation location = locations.get(index);
+        WeatherAPI weatherAPI = new WeatherAPI();
+        weatherAPI.setZipCode(location.getZipCode());
+        weatherAPI.setCountryCode(location.getCountryCode());
+        weatherAPI.setQuotaMode(ApiQuota.Mode.CACHED_FALLBACK);
+        RefreshScheduler refreshScheduler = refreshSchedulers[index];
+        long delay;
+        try {
+            weatherAPI.refresh(refreshScheduler.hasRefreshed());
+            WeatherSnapshot snapshot = weatherAPI.getSnapshot();
+            delay = refreshScheduler.refreshed(snapshot, System.currentTimeMillis());
+            // unchanged data leaves the tile as it is
+            if (refreshScheduler.getUnchangedCount() == 0 || location.getState().isFailed()) {
+                location.update(snapshot);
+                changed(index);
+            }
+        } catch (NetworkConnectionException e) {
+            delay = refreshScheduler.failed(System.currentTimeMillis());
+            location.failed("no network connection");
+            changed(index);
+        } catch (IOException | RuntimeException e) {
+            delay = refreshScheduler.failed(System.currentTimeMillis());
+            location.failed(e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+            changed(index);
+        }
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(() -> refresh(index), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Method queues a location whose tile has to be redrawn. The queue is drained by a single pending
+     * Platform.runLater(), so any number of refreshes finishing together cost one pass on the FX Application Thread.
+     */
+    private void changed(int index) {
+        changed.add(index);
+        if (drainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drainChanged);
+        }
+    }
+
+    private void drainChanged() {
+        drainScheduled.set(false);
+        long start = System.nanoTime();
+        Integer index;
+        while ((index = changed.poll()) != null) {
+            // a State is replaced as a whole, so the cell showing it, if any, is updated
+            tiles.set(index, locations.get(index).getState());
+        }
+        WeatherMetrics.getInstance().recordSince(WeatherMetrics.Stage.GUI_UPDATE, start);
+    }
+
+    /**
+     * Class draws one tile. The list creates only as many cells as fit on screen and moves them between
+     * locations while scrolling, a cell just swaps its text and points its view at the shared icon.
+     */
+    private static final class TileCell extends ListCell<DashboardLocation.State> {
+        private final ImageView icon = new ImageView();
+        private final Label title = new Label();
+        private final Label summary = new Label();
+        private final HBox tile = new HBox(12, icon, new VBox(4, title, summary));
+
+        TileCell() {
+            icon.setFitWidth(ICON_SIZE);
+            icon.setFitHeight(ICON_SIZE);
+            icon.setPreserveRatio(true);
+            title.setStyle("-fx-font-weight: bold");
+            tile.setPadding(new Insets(4, 8, 4, 8));
+        }
+
+        @Override
+        protected void updateItem(DashboardLocation.State state, boolean empty) {
+            super.updateItem(state, empty);
+            if (empty || state == null) {
+                setGraphic(null);
+                return;
+            }
+            WeatherCondition condition = state.getCondition();
+            icon.setImage(condition == null ? null : WeatherIcons.get(WeatherIcons.resourceFor(condition)));
+            title.setText(state.getTitle());
+            summary.setText(state.getSummary());
+            summary.setStyle(state.isFailed() ? "-fx-text-fill: firebrick" : "");
+            setGraphic(tile);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * Enum lists the Open Weather Map endpoints called by the application along with the number of seconds a
+ * response from each endpoint stays fresh in the response cache. The current weather is refreshed every
+ * 10 minutes upstream while the forecast only changes every 3 hours.
+ */
+enum WeatherEndpoint {
+    CURRENT("weather", 10 * 60),
+    FORECAST("forecast", 3 * 60 * 60);
+
+    private final String path;
+    private final long ttlSeconds;
+
+    WeatherEndpoint(String path, long ttlSeconds) {
+        this.path = path;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    /**
+     * Method returns the last path segment of the endpoint URL, "weather" or "forecast".
+     */
+    String getPath() {
+        return path;
+    }
+
+    /**
+     * Method returns how many seconds a cached response from this endpoint may be reused.
+     */
+    long getTtlSeconds() {
+        return ttlSeconds;
+    }
+}
@@ -30,6 +30,7 @@ public class WeatherGUI extends Application {
     static Label dayOneWeatherType;
     static Label dayTwoWeatherType;
     static Label dayThreeWeatherType;
+    static ProgressIndicator loadingIndicator;
     WeatherTimeDate timeDateInt = new WeatherTimeDate();
     static Image dayOneImage;
     static Image dayTwoImage;
@@ -43,6 +44,8 @@ public class WeatherGUI extends Application {
     private static String zipInput;
 
     public void start (Stage weatherStage) throws Exception {
+        // Decode the weather icons in the background while the window is built
+        WeatherIcons.preload();
 
         //Placeholder for BorderPane
         Text rightText = new Text("");
@@ -80,14 +83,25 @@ public class WeatherGUI extends Application {
         dayTwoDate = new Label(timeDateInt.getDayTwo());
         dayThreeDate = new Label(timeDateInt.getDayThree());
         zipLabel = new Label("Enter Zip Code");
+        // Keep the time and the day labels current, the clock ticks once a minute
+        WeatherClock.getInstance().addListener(tick -> runOnFxThread(() -> {
+            timeDate.setText(tick.getTimeDate());
+            dayOneDate.setText(tick.getDayOne());
+            dayTwoDate.setText(tick.getDayTwo());
+            dayThreeDate.setText(tick.getDayThree());
+        }));
 
         zipValue = new TextField();
         zipValue.setPromptText("Zip Code");
         zipValue.setMaxWidth(130);
 
         enterValue = new Button("Enter");
+        // Spinner shown next to the button while weather is being fetched
+        loadingIndicator = new ProgressIndicator();
+        loadingIndicator.setMaxSize(24, 24);
+        loadingIndicator.setVisible(false);
         // Input field box with label, input and enter
-        HBox inputField = new HBox(10, zipLabel, zipValue, enterValue);
+        HBox inputField = new HBox(10, zipLabel, zipValue, enterValue, loadingIndicator);
         inputField.setAlignment(Pos.CENTER);
 
         // TextArea Properties
@@ -157,7 +171,8 @@ public class WeatherGUI extends Application {
         WeatherInput handler = new WeatherInput();
         // Call to action after user enters input
         enterValue.setOnAction(handler);
-        zipInput = "10001";
+        // Paint the weather of the last session at once and fetch its location, 10001 on the first launch
+        zipInput = handler.restoreLastLocation("10001");
         enterValue.fire();
 
         weatherStage.addEventHandler(KeyEvent.KEY_PRESSED, (KeyEvent event) -> {
@@ -181,6 +196,10 @@ public class WeatherGUI extends Application {
     public static void setZipInput() {
         zipValue.setText("");
     }
+    // Show or hide the loading indicator while a refresh is running
+    public static void setLoading(boolean loading) {
+        loadingIndicator.setVisible(loading);
+    }
     // Set the text inside the first text area on the GUI
     public static void setWeatherFirst(String firstWeatherBox) {
         weatherFirst.setText(firstWeatherBox);
@@ -211,31 +230,39 @@ public class WeatherGUI extends Application {
     }
     // Setter for day one Image
     public void setDayOneImage(String imageFile) {
-        Platform.runLater(() -> {
+        runOnFxThread(() -> {
                 initialDayOne = imageFile;
-                dayOneImage = new Image(getClass().getResourceAsStream(imageFile));
+                dayOneImage = WeatherIcons.get(imageFile);
                 dayOne.setImage(dayOneImage);
             }
         );
     }
     // Setter for day two Image
     public void setDayTwoImage(String imageFile) {
-        Platform.runLater(() -> {
+        runOnFxThread(() -> {
                 initialDayTwo = imageFile;
-                dayTwoImage = new Image(getClass().getResourceAsStream(imageFile));
+                dayTwoImage = WeatherIcons.get(imageFile);
                 dayTwo.setImage(dayTwoImage);
             }
         );
     }
     // Setter for day three Image
     public void setDayThreeImage(String imageFile) {
-        Platform.runLater(() -> {
+        runOnFxThread(() -> {
                 initialDayThree = imageFile;
-                dayThreeImage = new Image(getClass().getResourceAsStream(imageFile));
+                dayThreeImage = WeatherIcons.get(imageFile);
                 dayThree.setImage(dayThreeImage);
             }
         );
     }
+    // Runs the action now when called on the FX Application Thread, otherwise queues it there
+    private static void runOnFxThread(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+        } else {
+            Platform.runLater(action);
+        }
+    }
     // Settings for the error message box if user enters invalid zip code input
     public static void dialogBox (){
         Alert alert = new Alert(Alert.AlertType.WARNING);
@@ -246,13 +273,24 @@ public class WeatherGUI extends Application {
 
         alert.showAndWait();
     }
-    // Settings for the error message box if user attempts to update before 10 minutes
-    public void upToDateDialogBox() {
+    // Settings for the error message box if user attempts to update before new weather is expected
+    public void upToDateDialogBox(long nextUpdateMillis) {
     	Alert alert = new Alert(Alert.AlertType.WARNING);
     	alert.initStyle(StageStyle.UTILITY);
     	alert.setTitle("Warning");
         alert.setHeaderText("Information Already Up To Date");
-        alert.setContentText("Weather can only be updated every 10 minutes!");
+        alert.setContentText("New weather is expected in about "
+                + Math.max(1, (nextUpdateMillis + 59_999) / 60_000) + " minutes!");
+        alert.showAndWait();
+    }
+    // Settings for the error message box if the API call budget is used up and nothing is cached
+    public void quotaDialogBox(long retryAfterMillis) {
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.initStyle(StageStyle.UTILITY);
+        alert.setTitle("Warning");
+        alert.setHeaderText("Too Many Weather Requests");
+        alert.setContentText("Please try again in "
+                + Math.max(1, (retryAfterMillis + 999) / 1000) + " seconds!");
         alert.showAndWait();
     }
     // Settings for the error message box if the internet connection fails
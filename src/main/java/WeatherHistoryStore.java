@@ -0,0 +1,526 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class keeps the history of the current conditions of every location, one fixed-width record per observation.
+ * Each location has its own directory of segment files, one per period of time, named after the epoch second
+ * the period starts at. Records are only appended when they are newer than the last one, so every segment is
+ * sorted by time and a range query finds its start with a binary search.
+ *
+ * Appends write the record from a reused buffer at the end of the segment, no objects are created per
+ * observation. Queries memory map the segments they cover read-only and visit the records in place. When a new
+ * segment is started, segments older than the retention period are deleted.
+ *
+ * Segment layout, big endian: header of magic "WHS2", record size and period start in epoch seconds, followed by
+ * records of RECORD_SIZE bytes: observation time (long), temperature, feels like and wind speed (float each),
+ * humidity and pressure (short each), visibility (int), condition (short, the condition code, so records stay
+ * readable when WeatherCondition changes), cloudiness (byte, percent) and today's chance of precipitation (byte,
+ * percent, -1 if unknown). Segments of an older layout are deleted when their location is loaded.
+ */
+final class WeatherHistoryStore {
+    static final int MAGIC = 0x57485332;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 32;
+    static final long DEFAULT_SEGMENT_SECONDS = TimeUnit.DAYS.toSeconds(7);
+    static final long DEFAULT_RETENTION_SECONDS = TimeUnit.DAYS.toSeconds(400);
+    // segment files kept open for appending, a batch over many zip codes closes the least recently used ones
+    private static final int MAX_OPEN_SEGMENTS = 128;
+    private static final String SUFFIX = ".seg";
+    private static final WeatherHistoryStore INSTANCE = new WeatherHistoryStore();
+
+    private final Path directory;
+    private final long segmentSeconds;
+    private final long retentionSeconds;
+    private final ConcurrentMap<String, ConcurrentMap<String, Series>> series = new ConcurrentHashMap<>();
+    private final Map<Series, FileChannel> openSegments = new LinkedHashMap<Series, FileChannel>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Series, FileChannel> eldest) {
+            if (size() > MAX_OPEN_SEGMENTS) {
+                close(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+    private final ThreadLocal<ByteBuffer> recordBuffer =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.BIG_ENDIAN));
+
+    /**
+     * Enum lists the values of an observation that can be read as numbers, for example for a chart.
+     */
+    enum Field {
+        TEMPERATURE, FEELS_LIKE, WIND_SPEED, HUMIDITY, PRESSURE, VISIBILITY, CLOUDINESS, PRECIPITATION_CHANCE;
+
+        float read(Observation observation) {
+            switch (this) {
+                case TEMPERATURE:
+                    return observation.getTemperature();
+                case FEELS_LIKE:
+                    return observation.getFeelsLike();
+                case WIND_SPEED:
+                    return observation.getWindSpeed();
+                case HUMIDITY:
+                    return observation.getHumidity();
+                case PRESSURE:
+                    return observation.getPressure();
+                case VISIBILITY:
+                    return observation.getVisibility();
+                case CLOUDINESS:
+                    return observation.getCloudiness();
+                default:
+                    return observation.getPrecipitationChance();
+            }
+        }
+    }
+
+    /**
+     * Interface for code that reads the observations of a range query.
+     */
+    interface Visitor {
+        /**
+         * @param observation The current record, only valid during the call.
+         */
+        void visit(Observation observation);
+    }
+
+    /**
+     * Class reads the values of one record where it lies in the mapped segment. A query moves a single instance
+     * from record to record instead of creating an object per observation.
+     */
+    static final class Observation {
+        private ByteBuffer segment;
+        private int offset;
+
+        private void moveTo(ByteBuffer segment, int offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        /**
+         * Method returns when the API last updated the observation, in epoch seconds.
+         */
+        long getTime() {
+            return segment.getLong(offset);
+        }
+
+        float getTemperature() {
+            return segment.getFloat(offset + 8);
+        }
+
+        float getFeelsLike() {
+            return segment.getFloat(offset + 12);
+        }
+
+        float getWindSpeed() {
+            return segment.getFloat(offset + 16);
+        }
+
+        int getHumidity() {
+            return segment.getShort(offset + 20);
+        }
+
+        int getPressure() {
+            return segment.getShort(offset + 22);
+        }
+
+        int getVisibility() {
+            return segment.getInt(offset + 24);
+        }
+
+        int getCloudiness() {
+            return segment.get(offset + 30);
+        }
+
+        WeatherCondition getCondition() {
+            return WeatherCondition.fromCode(segment.getShort(offset + 28));
+        }
+
+        /**
+         * Method returns the chance of precipitation forecast for the day of the observation in percent, or -1.
+         */
+        int getPrecipitationChance() {
+            return segment.get(offset + 31);
+        }
+    }
+
+    /**
+     * Class holds the state of one location: its directory, the start of each of its segments and the time
+     * of its newest record. Appends and changes to the segment list hold the lock of the instance.
+     */
+    private static final class Series {
+        private final Path directory;
+        private long[] segmentStarts;
+        private long lastTime = Long.MIN_VALUE;
+        private long activeStart = Long.MIN_VALUE;
+        private int activeCount;
+
+        Series(Path directory, long[] segmentStarts) {
+            this.directory = directory;
+            this.segmentStarts = segmentStarts;
+        }
+    }
+
+    /**
+     * Default history directory is ".weather_app/history" in the user's home directory. It can be changed with
+     * the "weather.history.dir" system property.
+     */
+    WeatherHistoryStore() {
+        this(Paths.get(System.getProperty("weather.history.dir",
+                Paths.get(System.getProperty("user.home"), ".weather_app", "history").toString())),
+                DEFAULT_SEGMENT_SECONDS, DEFAULT_RETENTION_SECONDS);
+    }
+
+    /**
+     * @param directory Directory holding one directory per location.
+     * @param segmentSeconds Period of time covered by one segment file.
+     * @param retentionSeconds How long observations are kept, whole segments are deleted once they are older.
+     */
+    WeatherHistoryStore(Path directory, long segmentSeconds, long retentionSeconds) {
+        if (segmentSeconds < 1 || retentionSeconds < segmentSeconds) {
+            throw new IllegalArgumentException("Retention must be at least one segment of " + segmentSeconds + " s");
+        }
+        this.directory = directory;
+        this.segmentSeconds = segmentSeconds;
+        this.retentionSeconds = retentionSeconds;
+    }
+
+    /**
+     * Method returns the history store of the application.
+     */
+    static WeatherHistoryStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Method appends the current conditions of a snapshot to the history of its location.
+     * @return True if the observation was stored, false if it is not newer than the last stored one.
+     * @throws IOException if the segment cannot be written.
+     */
+    boolean append(WeatherSnapshot snapshot) throws IOException {
+        CurrentConditions current = snapshot.getCurrent();
+        long time = current.getLastUpdate() > 0 ? current.getLastUpdate() : snapshot.getFetchedAt();
+        DailyForecast today = snapshot.getForecastForDay(0, time);
+
+        ByteBuffer record = recordBuffer.get();
+        record.clear();
+        record.putLong(time)
+                .putFloat(current.getTemperature())
+                .putFloat(current.getFeelsLike())
+                .putFloat(current.getWindSpeed())
+                .putShort((short) current.getHumidity())
+                .putShort((short) current.getPressure())
+                .putInt(current.getVisibility())
+                .putShort((short) current.getCondition().getCode())
+                .put((byte) current.getCloudiness())
+                .put((byte) (today == null ? -1 : Math.round(today.getPrecipitationChance() * 100)));
+        record.flip();
+
+        Series location = series(snapshot.getZipCode(), snapshot.getCountryCode(), true);
+        synchronized (location) {
+            if (time <= location.lastTime) {
+                return false;
+            }
+            for (boolean retried = false; ; retried = true) {
+                FileChannel segment = segmentFor(location, time);
+                long position = HEADER_SIZE + (long) location.activeCount * RECORD_SIZE;
+                try {
+                    while (record.hasRemaining()) {
+                        position += segment.write(record, position);
+                    }
+                    break;
+                } catch (ClosedChannelException e) {
+                    // closed as least recently used, or by an interrupted writer, by another thread
+                    if (retried || Thread.currentThread().isInterrupted()) {
+                        throw e;
+                    }
+                    record.rewind();
+                }
+            }
+            location.activeCount++;
+            location.lastTime = time;
+            return true;
+        }
+    }
+
+    /**
+     * Method visits the observations of a location in a time range, oldest first.
+     * @param from Start of the range in epoch seconds, inclusive.
+     * @param to End of the range in epoch seconds, inclusive.
+     * @return The number of observations visited.
+     * @throws IOException if a segment cannot be read.
+     */
+    int scan(String zip, String country, long from, long to, Visitor visitor) throws IOException {
+        Series location = series(zip, country, false);
+        if (location == null || from > to) {
+            return 0;
+        }
+        long[] starts;
+        long activeStart;
+        int activeCount;
+        synchronized (location) {
+            starts = location.segmentStarts;
+            activeStart = location.activeStart;
+            activeCount = location.activeCount;
+        }
+
+        Observation observation = new Observation();
+        int visited = 0;
+        for (long start : starts) {
+            if (start > to || start + segmentSeconds <= from) {
+                continue;
+            }
+            Path file = location.directory.resolve(start + SUFFIX);
+            ByteBuffer segment;
+            int count;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                // records of the segment being appended to are only read up to the last complete append
+                count = start == activeStart ? activeCount
+                        : (int) ((channel.size() - HEADER_SIZE) / RECORD_SIZE);
+                if (count <= 0) {
+                    continue;
+                }
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE + (long) count * RECORD_SIZE);
+            } catch (NoSuchFileException e) {
+                // deleted by retention while the query ran
+                continue;
+            }
+            for (int i = firstAtOrAfter(segment, count, from); i < count; i++) {
+                int offset = HEADER_SIZE + i * RECORD_SIZE;
+                if (segment.getLong(offset) > to) {
+                    break;
+                }
+                observation.moveTo(segment, offset);
+                visitor.visit(observation);
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Method summarizes one value of a location over a time range in equally long buckets, for example to draw
+     * a chart of a month with one point per day. The arrays passed in decide the number of buckets.
+     * @param min Receives the lowest value of each bucket.
+     * @param mean Receives the average value of each bucket.
+     * @param max Receives the highest value of each bucket.
+     * @param count Receives the number of observations in each bucket, the other arrays hold NaN where it is 0.
+     * @return The number of observations summarized.
+     * @throws IOException if a segment cannot be read.
+     */
+    int downsample(String zip, String country, long from, long to, Field field,
+                   float[] min, float[] mean, float[] max, int[] count) throws IOException {
+        int buckets = count.length;
+        if (buckets == 0 || min.length < buckets || mean.length < buckets || max.length < buckets) {
+            throw new IllegalArgumentException("Every array needs one element per bucket");
+        }
+        double[] sum = new double[buckets];
+        Arrays.fill(count, 0);
+        Arrays.fill(min, 0, buckets, Float.POSITIVE_INFINITY);
+        Arrays.fill(max, 0, buckets, Float.NEGATIVE_INFINITY);
+        double bucketSeconds = (double) (to - from + 1) / buckets;
+        int total = scan(zip, country, from, to, observation -> {
+            int bucket = Math.min(buckets - 1, (int) ((observation.getTime() - from) / bucketSeconds));
+            float value = field.read(observation);
+            min[bucket] = Math.min(min[bucket], value);
+            max[bucket] = Math.max(max[bucket], value);
+            sum[bucket] += value;
+            count[bucket]++;
+        });
+        for (int i = 0; i < buckets; i++) {
+            if (count[i] == 0) {
+                min[i] = mean[i] = max[i] = Float.NaN;
+            } else {
+                mean[i] = (float) (sum[i] / count[i]);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Method returns the series of a location, reading its segment list from disk the first time.
+     * @param create True to create the directory of a new location, false to return null for one without history.
+     */
+    private Series series(String zip, String country, boolean create) throws IOException {
+        ConcurrentMap<String, Series> byZip = series.get(country.toLowerCase());
+        Series location = byZip == null ? null : byZip.get(zip);
+        if (location != null) {
+            return location;
+        }
+        // escaped like the response cache, a zip code from a request can never leave the history directory
+        StringBuilder name = new StringBuilder();
+        WeatherCache.escape(country.toLowerCase(), name);
+        name.append('_');
+        WeatherCache.escape(zip, name);
+        Path path = directory.resolve(name.toString());
+        if (!create && !Files.isDirectory(path)) {
+            return null;
+        }
+        Files.createDirectories(path);
+        Series loaded = load(path);
+        location = series.computeIfAbsent(country.toLowerCase(), key -> new ConcurrentHashMap<>())
+                .putIfAbsent(zip, loaded);
+        return location == null ? loaded : location;
+    }
+
+    /**
+     * Method lists the segments of a location and finds the time of its newest record. Segments written in an
+     * older layout are deleted.
+     */
+    private Series load(Path path) throws IOException {
+        long[] starts = new long[8];
+        int n = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    long start = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+                    if (!hasCurrentLayout(file)) {
+                        Files.delete(file);
+                        continue;
+                    }
+                    if (n == starts.length) {
+                        starts = Arrays.copyOf(starts, n * 2);
+                    }
+                    starts[n++] = start;
+                } catch (NumberFormatException e) {
+                    // not a segment
+                }
+            }
+        }
+        starts = Arrays.copyOf(starts, n);
+        Arrays.sort(starts);
+        Series location = new Series(path, starts);
+        if (n > 0) {
+            long newest = starts[n - 1];
+            try (FileChannel channel = FileChannel.open(path.resolve(newest + SUFFIX), StandardOpenOption.READ)) {
+                int count = (int) Math.max(0, (channel.size() - HEADER_SIZE) / RECORD_SIZE);
+                location.activeStart = newest;
+                location.activeCount = count;
+                if (count > 0) {
+                    ByteBuffer time = ByteBuffer.allocate(8);
+                    channel.read(time, HEADER_SIZE + (long) (count - 1) * RECORD_SIZE);
+                    location.lastTime = time.getLong(0);
+                }
+            }
+        }
+        return location;
+    }
+
+    private static boolean hasCurrentLayout(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            channel.read(header, 0);
+            return !header.hasRemaining() && header.getInt(0) == MAGIC && header.getInt(4) == RECORD_SIZE;
+        }
+    }
+
+    /**
+     * Method returns the open segment for an observation, starting a new segment when the observation belongs
+     * to a later period. Starting a segment also deletes the segments past the retention period. Called with
+     * the lock of the series held.
+     */
+    private FileChannel segmentFor(Series location, long time) throws IOException {
+        long start = Math.floorDiv(time, segmentSeconds) * segmentSeconds;
+        synchronized (openSegments) {
+            FileChannel channel = openSegments.get(location);
+            if (channel != null && channel.isOpen() && start == location.activeStart) {
+                return channel;
+            }
+            if (channel != null) {
+                openSegments.remove(location);
+                close(channel);
+            }
+        }
+
+        Path file = location.directory.resolve(start + SUFFIX);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (start != location.activeStart) {
+            // a new period, the header is written once and earlier segments are checked for retention
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(RECORD_SIZE).putLong(start).flip();
+            channel.write(header, 0);
+            location.activeStart = start;
+            location.activeCount = 0;
+            expire(location, start);
+        }
+        synchronized (openSegments) {
+            openSegments.put(location, channel);
+        }
+        return channel;
+    }
+
+    /**
+     * Method deletes the segments of a location that end before the retention period and records the
+     * remaining segments including a newly started one.
+     */
+    private void expire(Series location, long newStart) throws IOException {
+        long oldestKept = newStart - retentionSeconds;
+        long[] starts = Arrays.copyOf(location.segmentStarts, location.segmentStarts.length + 1);
+        starts[starts.length - 1] = newStart;
+        int kept = 0;
+        for (long start : starts) {
+            if (start + segmentSeconds <= oldestKept) {
+                Files.deleteIfExists(location.directory.resolve(start + SUFFIX));
+            } else {
+                starts[kept++] = start;
+            }
+        }
+        starts = Arrays.copyOf(starts, kept);
+        Arrays.sort(starts);
+        location.segmentStarts = starts;
+    }
+
+    /**
+     * Method returns the first record at or after a time with a binary search over the sorted records.
+     */
+    private static int firstAtOrAfter(ByteBuffer segment, int count, long time) {
+        int low = 0, high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (segment.getLong(HEADER_SIZE + middle * RECORD_SIZE) < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Method closes every open segment file.
+     */
+    void close() {
+        synchronized (openSegments) {
+            Iterator<FileChannel> channels = openSegments.values().iterator();
+            while (channels.hasNext()) {
+                close(channels.next());
+                channels.remove();
+            }
+        }
+    }
+
+    private static void close(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // nothing was buffered, the data is already written
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import javafx.scene.image.Image;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class keeps every weather icon decoded once at the size it is displayed at. Icons are decoded in the background
+ * by JavaFX, either all at startup with preload() or on first use, and every later refresh reuses the same Image.
+ */
+final class WeatherIcons {
+    static final int SIZE = 170;
+    private static final Map<String, Image> icons = new ConcurrentHashMap<>();
+
+    private WeatherIcons() {
+    }
+
+    /**
+     * Method starts decoding the icon of every weather condition in the background.
+     */
+    static void preload() {
+        for (WeatherCondition condition : WeatherCondition.values()) {
+            get(resourceFor(condition));
+        }
+    }
+
+    /**
+     * Method returns the icon for a resource path, decoding it on first use.
+     * @param resource Path of the icon on the class path, for example "/weather_icons/icon_sunny.png".
+     */
+    static Image get(String resource) {
+        return icons.computeIfAbsent(resource, WeatherIcons::load);
+    }
+
+    /**
+     * Takes the weather condition
+     * matches the weather condition to icon list
+     * returns value of correct icon file
+     */
+    static String resourceFor(WeatherCondition value) {
+        String weatherType;
+        switch (value) {
+            case THUNDERSTORM:
+                weatherType = "/weather_icons/icon_lightning_cloudy.png";
+                break;
+            case DRIZZLE:
+                weatherType = "/weather_icons/icon_drip.png";
+                break;
+            case RAIN:
+                weatherType = "/weather_icons/icon_raining.png";
+                break;
+            case SNOW:
+                weatherType = "/weather_icons/icon_snowing.png";
+                break;
+            case MIST:
+                weatherType = "/weather_icons/icon_foggy_cloud.png";
+                break;
+            case CLEAR_SKY:
+                weatherType = "/weather_icons/icon_sunny.png";
+                break;
+            case CLOUDY:
+                weatherType = "/weather_icons/icon_cloudy.png";
+                break;
+            default:
+                weatherType = "/weather_icons/icon_windy.png";
+        }
+        return weatherType;
+    }
+
+    /**
+     * Method decodes an icon scaled to the display size. Loading from the URL lets JavaFX open and close the
+     * stream itself.
+     */
+    private static Image load(String resource) {
+        URL url = WeatherIcons.class.getResource(resource);
+        if (url == null) {
+            throw new IllegalArgumentException("Missing icon " + resource);
+        }
+        return new Image(url.toExternalForm(), SIZE, SIZE, true, true, true);
+    }
+}
@@ -5,12 +5,45 @@ import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class WeatherInput implements EventHandler<ActionEvent> {
+    private static final ScheduledExecutorService refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "weather-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
     private final WeatherAPI weatherAPI = new WeatherAPI();
-    private final WeatherTimeDate timeDate = new WeatherTimeDate();
     private final WeatherGUI gui = new WeatherGUI();
+    private final LastSnapshotStore lastSnapshotStore = LastSnapshotStore.getInstance();
+    private WeatherSnapshot savedSnapshot;
     private boolean startupDefaultWeatherCall = true;
+    private volatile long generation;
+    private Future<?> pendingRefresh;
+
+    public WeatherInput() {
+        // the window should not hang while the API budget refills, expired weather is shown instead
+        weatherAPI.setQuotaMode(ApiQuota.Mode.CACHED_FALLBACK);
+    }
+
+    /**
+     * Method loads the snapshot saved by the last session, so it can be painted as soon as the window is shown.
+     * The location of the snapshot becomes the location fetched on startup.
+     * @param defaultZip Zip code to fetch on startup if no snapshot has been saved.
+     * @return The zip code to fetch on startup.
+     */
+    public String restoreLastLocation(String defaultZip) {
+        savedSnapshot = lastSnapshotStore.load();
+        if (savedSnapshot == null) {
+            return defaultZip;
+        }
+        weatherAPI.setCountryCode(savedSnapshot.getCountryCode());
+        return savedSnapshot.getZipCode();
+    }
 
     /**
      * If the event being handled is from the manual call that occurs
@@ -23,6 +56,19 @@ public class WeatherInput implements EventHandler<ActionEvent> {
      * All other events will be from button presses performed by the
      * user. When these occur, text from the textField will be stored
      * and then returned as the new zipInput value.
+     *
+     * The weather is fetched on a background thread while the GUI shows
+     * a loading indicator, so the window stays responsive. A refresh that
+     * is still running when another zip code is entered is cancelled and
+     * its result is never shown. A zip code the offline gazetteer does not
+     * know is rejected right away if the gazetteer holds every zip code of
+     * its country, and a known one shows its city at once.
+     *
+     * After every refresh the same zip code is refreshed again on its own
+     * once the RefreshScheduler expects new weather from the API.
+     *
+     * On startup the snapshot of the last session is painted right away,
+     * marked with its age, while the fresh weather is fetched.
      **/
     @Override
     public void handle(ActionEvent event){
@@ -34,93 +80,170 @@ public class WeatherInput implements EventHandler<ActionEvent> {
     	}
         
     	String value = gui.getZipInput();
+        String cityName;
+        try {
+            // the gazetteer answers in microseconds, unknown zip codes of complete countries never reach the API
+            cityName = WeatherAPI.checkZipCode(value, weatherAPI.getCountryCode());
+        } catch (InvalidZipCodeException e) {
+            gui.dialogBox();
+            gui.setZipInput();
+            return;
+        }
+        if (cityName != null) {
+            gui.setLabelInput(cityName);
+        }
+        if (savedSnapshot != null) {
+            paintSaved(savedSnapshot);
+            savedSnapshot = null;
+        }
+        long requestGeneration = ++generation;
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel(true);
+        }
+        gui.setLoading(true);
+        pendingRefresh = refreshExecutor.submit(() -> refresh(value, requestGeneration, false));
+    }
+
+    /**
+     * Method runs on the refresh thread. It fetches the weather for the zip code, prepares everything the GUI
+     * shows and hands it to the FX Application Thread in a single Platform.runLater(). The result is dropped
+     * if another refresh was requested in the meantime. An automatic refresh shows no dialogs, a failed one is
+     * simply retried later.
+     */
+    private void refresh(String value, long requestGeneration, boolean automatic) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        Runnable update;
         //takes the user input value and passes it to WeatherAPI.java class
-        timeDate.UpdateTimeDate();
         weatherAPI.setZipCode(value);
         try {
             weatherAPI.updateWeather();
-        } catch (IOException | NullPointerException e) {
-            gui.dialogBox();
+            // a forecast that does not reach the day after tomorrow leaves the panels as they are until the
+            // next refresh
+            update = display(weatherAPI.getSnapshot());
+            if (update != null) {
+                save(weatherAPI.getSnapshot());
+            }
+        } catch (QuotaExceededException e) {
+            long retryAfter = e.getRetryAfterMillis();
+            update = automatic ? null : () -> gui.quotaDialogBox(retryAfter);
+        } catch (IOException e) {
+            if (e instanceof InterruptedIOException && Thread.currentThread().isInterrupted()) {
+                // cancelled, a newer refresh has been requested
+                return;
+            }
+            update = automatic ? null : () -> {
+                gui.dialogBox();
+                gui.setZipInput();
+            };
         } catch (WeatherAPI.AlreadyUpToDateException e) {
-        	gui.upToDateDialogBox();
+            long nextUpdate = weatherAPI.getNextUpdateDelayMillis();
+            update = automatic ? null : () -> gui.upToDateDialogBox(nextUpdate);
         } catch (NetworkConnectionException e) {
-            Platform.runLater(() -> {
-                        gui.intCheckBox();
-                    }
-            );
+            update = automatic ? null : WeatherGUI::intCheckBox;
         }
+        scheduleNext(value, requestGeneration);
 
-        /*
-          Sends string value for current, day one,
-          and day two weather values to the GUI.
-          Calls weather name method and sends to weatherType
-          method to send over correct file type for icon
-          @throws NullPointerException if not zipcode is provided
-         */
-        try {
-            gui.setWeatherFirst( "Temperature: " + weatherAPI.getTemperature() + "\u00B0" +
-                    "\nPrecipitation: " + weatherAPI.getPrecipChanceToday() +
-                    "\nHumidity: " + weatherAPI.getHumidity() + "\u0025" +
-                    "\nPressure: " + weatherAPI.getPressure() + " mbar");
-            gui.setDayOneImage(weatherType(weatherAPI.getWeatherName()));
-
-            gui.setWeatherSecond( "Temperature Max: " + weatherAPI.getMaxTempTodayPlusOne()+ "\u00B0" +
-                    "\nTemperature Min: " + weatherAPI.getMinTempTodayPlusOne() + "\u00B0" +
-                    "\nPrecipitation: " + weatherAPI.getPrecipChanceTodayPlusOne() +
-                    "\nHumidity: " + weatherAPI.getHumidityTodayPlusOne() + "\u0025" +
-                    "\nPressure: " + weatherAPI.getPressureTodayPlusOne() + " mbar");
-            gui.setDayTwoImage(weatherType(weatherAPI.getWeatherNameTodayPlusOne()));
+        Runnable result = update;
+        Platform.runLater(() -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            gui.setLoading(false);
+            if (result != null) {
+                long start = System.nanoTime();
+                result.run();
+                WeatherMetrics.getInstance().recordSince(WeatherMetrics.Stage.GUI_UPDATE, start);
+            }
+        });
+    }
 
-            gui.setWeatherThird( "Temperature Max: " + weatherAPI.getMaxTempTodayPlusTwo()+ "\u00B0" +
-                    "\nTemperature Min: " + weatherAPI.getMinTempTodayPlusTwo() + "\u00B0" +
-                    "\nPrecipitation: " + weatherAPI.getPrecipChanceTodayPlusTwo() +
-                    "\nHumidity: " + weatherAPI.getHumidityTodayPlusTwo() + "\u0025" +
-                    "\nPressure: " + weatherAPI.getPressureTodayPlusTwo() + " mbar");
-            gui.setDayThreeImage(weatherType(weatherAPI.getWeatherNameTodayPlusTwo()));
+    /**
+     * Method paints a snapshot of an earlier session on the FX Application Thread, with its age next to the city
+     * name until the refresh replaces it. A snapshot whose forecast no longer covers the next two days is not
+     * painted.
+     */
+    private void paintSaved(WeatherSnapshot snapshot) {
+        long now = System.currentTimeMillis() / 1000;
+        if (snapshot.getForecastForDay(1, now) == null || snapshot.getForecastForDay(2, now) == null) {
+            return;
+        }
+        display(snapshot).run();
+        long age = now - snapshot.getFetchedAt();
+        gui.setLabelInput(snapshot.getCurrent().getCityName() + " (" + WeatherText.formatAge(age) + ")");
+    }
 
-            gui.setLabelInput(weatherAPI.getCityName());
-            gui.setWeatherOne(weatherAPI.getWeatherName());
-            gui.setWeatherTwo(weatherAPI.getWeatherNameTodayPlusOne());
-            gui.setWeatherThree(weatherAPI.getWeatherNameTodayPlusTwo());
+    /**
+     * Method keeps the snapshot being displayed for the next launch. A failure only costs the warm start.
+     */
+    private void save(WeatherSnapshot snapshot) {
+        try {
+            lastSnapshotStore.save(snapshot);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-        //invalid inputs throw null pointer exceptions, so when caught, the program displays an error box.
-        catch (NullPointerException e){
-            gui.dialogBox();
-            gui.setZipInput();
+    }
+
+    /**
+     * Method schedules the automatic refresh of the zip code for when the next update of the weather is
+     * expected, unless another zip code has been entered in the meantime.
+     */
+    private void scheduleNext(String value, long requestGeneration) {
+        if (requestGeneration != generation || Thread.currentThread().isInterrupted()) {
+            return;
         }
+        // updateWeather() only fetches once the scheduler is due, so wake up just after that
+        Future<?> next = refreshExecutor.schedule(() -> refresh(value, requestGeneration, true),
+                weatherAPI.getNextUpdateDelayMillis() + 1, TimeUnit.MILLISECONDS);
+        Platform.runLater(() -> {
+            if (requestGeneration == generation) {
+                pendingRefresh = next;
+            } else {
+                next.cancel(false);
+            }
+        });
     }
+
     /**
-     * Takes input string value of weather type
-     * matches the weather type to icon list
-     * returns value of correct icon file
+     * Builds the string values for current, day one, and day two weather
+     * and the icon files on the refresh thread, and returns the action
+     * that sends them to the GUI.
+     * @return The action, or null if the forecast does not cover the
+     * next two days.
      */
-    private String weatherType (String value){
-        String weatherType;
-        switch (value) {
-            case "Thunderstorm":
-                weatherType = "/weather_icons/icon_lightning_cloudy.png";
-                break;
-            case "Drizzle":
-                weatherType = "/weather_icons/icon_drip.png";
-                break;
-            case "Rain":
-                weatherType = "/weather_icons/icon_raining.png";
-                break;
-            case "Snow":
-                weatherType = "/weather_icons/icon_snowing.png";
-                break;
-            case "Mist":
-                weatherType = "/weather_icons/icon_foggy_cloud.png";
-                break;
-            case "Clear Sky":
-                weatherType = "/weather_icons/icon_sunny.png";
-                break;
-            case "Cloudy":
-                weatherType = "/weather_icons/icon_cloudy.png";
-                break;
-            default:
-                weatherType = "/weather_icons/icon_windy.png";
+    private Runnable display(WeatherSnapshot snapshot) {
+        CurrentConditions current = snapshot.getCurrent();
+        long now = System.currentTimeMillis() / 1000;
+        DailyForecast today = snapshot.getForecastForDay(0, now);
+        DailyForecast todayPlusOne = snapshot.getForecastForDay(1, now);
+        DailyForecast todayPlusTwo = snapshot.getForecastForDay(2, now);
+        if (todayPlusOne == null || todayPlusTwo == null) {
+            return null;
         }
-        return weatherType;
+
+        String weatherFirst = WeatherText.formatCurrent(current, today);
+        String weatherSecond = WeatherText.formatForecastDay(todayPlusOne);
+        String weatherThird = WeatherText.formatForecastDay(todayPlusTwo);
+        String dayOneImage = WeatherIcons.resourceFor(current.getCondition());
+        String dayTwoImage = WeatherIcons.resourceFor(todayPlusOne.getCondition());
+        String dayThreeImage = WeatherIcons.resourceFor(todayPlusTwo.getCondition());
+        String cityName = current.getCityName();
+        String weatherOne = current.getCondition().getDisplayName();
+        String weatherTwo = todayPlusOne.getCondition().getDisplayName();
+        String weatherThree = todayPlusTwo.getCondition().getDisplayName();
+
+        return () -> {
+            gui.setWeatherFirst(weatherFirst);
+            gui.setDayOneImage(dayOneImage);
+            gui.setWeatherSecond(weatherSecond);
+            gui.setDayTwoImage(dayTwoImage);
+            gui.setWeatherThird(weatherThird);
+            gui.setDayThreeImage(dayThreeImage);
+            gui.setLabelInput(cityName);
+            gui.setWeatherOne(weatherOne);
+            gui.setWeatherTwo(weatherTwo);
+            gui.setWeatherThree(weatherThree);
+        };
     }
 }
@@ -0,0 +1,19 @@
+/**
+ * Interface implemented by the classes that collect weather values from a JSON response.
+ */
+interface WeatherJsonHandler {
+    /**
+     * Method is called for every string, number and boolean value of the document.
+     * @param path Names of the enclosing objects joined with ".", array levels add nothing to the path, for
+     *             example "list.main.temp".
+     * @param value Text of the value.
+     */
+    void value(String path, String value);
+
+    /**
+     * Method is called when an object inside an array ends, for example every forecast slot of "list".
+     * @param path Path of the array.
+     */
+    default void endArrayElement(String path) {
+    }
+}
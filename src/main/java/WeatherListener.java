@@ -0,0 +1,11 @@
+/**
+ * Interface for code that wants to be told when new weather for a location has been fetched, instead of asking
+ * WeatherAPI for it. Register with WeatherAPI.subscribe().
+ */
+public interface WeatherListener {
+    /**
+     * Method is called with the changes since the last update this listener received. Calls for one listener
+     * never overlap and arrive in order, on the executor given when subscribing.
+     */
+    void weatherChanged(WeatherUpdate update);
+}
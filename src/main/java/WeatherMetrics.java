@@ -0,0 +1,165 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Class counts what the application does and how long each stage of a refresh takes, and publishes the results
+ * as JMX MBeans so they can be watched with jconsole or any other JMX client. Counters are LongAdders and stage
+ * latencies go into a LatencyHistogram, so recording never takes a lock and adds only a few atomic increments
+ * to the refresh.
+ */
+final class WeatherMetrics implements WeatherMetricsMBean {
+    private static final WeatherMetrics INSTANCE = new WeatherMetrics();
+
+    /**
+     * Stages of a refresh that are timed.
+     */
+    enum Stage {
+        REFRESH("refresh"),
+        CONNECTIVITY_CHECK("connectivityCheck"),
+        HTTP_RESPONSE("httpResponse"),
+        HTTP_READ("httpRead"),
+        PARSE_CURRENT("parseCurrent"),
+        PARSE_FORECAST("parseForecast"),
+        AGGREGATION("aggregation"),
+        GUI_UPDATE("guiUpdate");
+
+        private final String name;
+
+        Stage(String name) {
+            this.name = name;
+        }
+    }
+
+    private final StageTimer[] stages = new StageTimer[Stage.values().length];
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder failedRefreshes = new LongAdder();
+    private final LongAdder alreadyUpToDate = new LongAdder();
+    private final LongAdder networkFailures = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+
+    private WeatherMetrics() {
+        for (Stage stage : Stage.values()) {
+            stages[stage.ordinal()] = new StageTimer();
+        }
+        register();
+    }
+
+    /**
+     * Method returns the metrics of the application.
+     */
+    static WeatherMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Method records how long one run of a stage took.
+     * @param stage Stage that ran.
+     * @param startNanos Value of System.nanoTime() when the stage started.
+     */
+    void recordSince(Stage stage, long startNanos) {
+        stages[stage.ordinal()].getHistogram().record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Method records how long one run of a stage took.
+     */
+    void record(Stage stage, long nanos) {
+        stages[stage.ordinal()].getHistogram().record(nanos);
+    }
+
+    /**
+     * Method returns the latencies recorded for a stage.
+     */
+    LatencyHistogram getHistogram(Stage stage) {
+        return stages[stage.ordinal()].getHistogram();
+    }
+
+    void refreshAttempted() {
+        refreshes.increment();
+    }
+
+    void refreshFailed() {
+        failedRefreshes.increment();
+    }
+
+    void alreadyUpToDate() {
+        alreadyUpToDate.increment();
+    }
+
+    void networkFailure() {
+        networkFailures.increment();
+    }
+
+    void cacheHit() {
+        cacheHits.increment();
+    }
+
+    void notModified() {
+        notModified.increment();
+    }
+
+    void bytesReceived(long bytes) {
+        bytesReceived.add(bytes);
+    }
+
+    @Override
+    public long getRefreshCount() {
+        return refreshes.sum();
+    }
+
+    @Override
+    public long getFailedRefreshCount() {
+        return failedRefreshes.sum();
+    }
+
+    @Override
+    public long getAlreadyUpToDateCount() {
+        return alreadyUpToDate.sum();
+    }
+
+    @Override
+    public long getNetworkFailureCount() {
+        return networkFailures.sum();
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getNotModifiedCount() {
+        return notModified.sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    /**
+     * Method registers the counters and one MBean per stage with the platform MBean server. Metrics are still
+     * recorded if registration fails, for example when another class loader registered them first.
+     */
+    private void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, new ObjectName("WeatherApp:type=Counters"));
+            for (Stage stage : Stage.values()) {
+                server.registerMBean(stages[stage.ordinal()],
+                        new ObjectName("WeatherApp:type=Stage,name=" + stage.name));
+            }
+        } catch (InstanceAlreadyExistsException e) {
+            // keep recording, the first registration stays visible
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * JMX view of the counters of WeatherMetrics, registered as "WeatherApp:type=Counters".
+ */
+public interface WeatherMetricsMBean {
+    long getRefreshCount();
+
+    long getFailedRefreshCount();
+
+    long getAlreadyUpToDateCount();
+
+    long getNetworkFailureCount();
+
+    long getCacheHitCount();
+
+    long getNotModifiedCount();
+
+    long getBytesReceived();
+}
@@ -0,0 +1,16 @@
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Interface for the component that reads an API response and reports its elements to a weather handler.
+ * The engine used by WeatherAPI can be swapped without touching the handlers.
+ */
+interface WeatherParserEngine {
+    /**
+     * Method parses a complete response.
+     * @param in Response body.
+     * @param handler Handler that receives the elements of the response.
+     * @throws IOException if the response cannot be read or is not well formed.
+     */
+    void parse(InputStream in, WeatherXmlHandler handler) throws IOException;
+}
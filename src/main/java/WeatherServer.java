@@ -0,0 +1,421 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless server that shares one WeatherAPI process with many internal clients, so they no longer each run a
+ * desktop instance with their own key. "/current" and "/forecast" answer a zip code as compact JSON.
+ *
+ * The JSON of every location is built once per refresh and kept in memory, a request for a location that is
+ * up to date only writes those bytes. A location is refreshed when its RefreshScheduler expects new data from
+ * the API, and clients asking for the same location while it is refreshed wait for that one refresh, so the
+ * calls to the API grow with the number of distinct locations and not with the number of clients. If a refresh
+ * fails, the last data of the location is served with a Warning header until the API answers again. A location
+ * whose first refresh fails, such as an unknown zip code, answers with the same error until its scheduler allows
+ * the next attempt, so repeated requests for it do not call the API either.
+ *
+ * Usage: WeatherServer [--port 8090] [--threads 32] [--virtual-threads]
+ *
+ * Example: curl "http://localhost:8090/current?zip=10001&country=us"
+ */
+public class WeatherServer {
+    private final ConcurrentMap<String, Location> locations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Failure> failures = new ConcurrentHashMap<>();
+    private final SingleFlight<String, Location> refreshes = new SingleFlight<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder upstreamRefreshes = new LongAdder();
+
+    /**
+     * Class holds the last weather of one location as ready to send JSON, together with the scheduler that
+     * decides when it is refreshed. Instances are replaced as a whole after every refresh.
+     */
+    private static final class Location {
+        private final byte[] current;
+        private final byte[] forecast;
+        private final String etag;
+        private final String units;
+        private final long fetchedAtMillis;
+        private final RefreshScheduler scheduler;
+
+        Location(byte[] current, byte[] forecast, String etag, String units, long fetchedAtMillis,
+                 RefreshScheduler scheduler) {
+            this.current = current;
+            this.forecast = forecast;
+            this.etag = etag;
+            this.units = units;
+            this.fetchedAtMillis = fetchedAtMillis;
+            this.scheduler = scheduler;
+        }
+    }
+
+    /**
+     * Class holds the error of a location that has no weather yet, together with the scheduler that decides when
+     * its refresh is attempted again.
+     */
+    private static final class Failure {
+        private final Exception error;
+        private final RefreshScheduler scheduler;
+
+        Failure(Exception error, RefreshScheduler scheduler) {
+            this.error = error;
+            this.scheduler = scheduler;
+        }
+
+        void rethrow() throws IOException, NetworkConnectionException {
+            if (error instanceof NetworkConnectionException) {
+                throw (NetworkConnectionException) error;
+            }
+            throw (IOException) error;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8090, threads = 32;
+        boolean virtualThreads = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--virtual-threads":
+                    virtualThreads = true;
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (threads < 1) {
+            System.err.println("Usage: WeatherServer [--port <n>] [--threads <n>] [--virtual-threads]");
+            System.exit(2);
+        }
+
+        HttpServer server = new WeatherServer().start(port, createExecutor(threads, virtualThreads));
+        System.err.println("Serving weather at http://localhost:" + server.getAddress().getPort()
+                + "/current?zip=10001&country=us");
+    }
+
+    /**
+     * Method starts the server.
+     * @param port Port to listen on, 0 picks a free port.
+     * @param executor Executor handling the requests.
+     * @return The running server.
+     */
+    HttpServer start(int port, ExecutorService executor) throws IOException {
+        // headers and body are written separately, without TCP_NODELAY small responses wait for a delayed ACK
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(executor);
+        server.createContext("/current", exchange -> respond(exchange, true));
+        server.createContext("/forecast", exchange -> respond(exchange, false));
+        server.start();
+        return server;
+    }
+
+    /**
+     * Method creates the executor that handles requests. Virtual threads are used when requested and the
+     * running JDK provides them, they are looked up reflectively so the application still builds for Java 8.
+     */
+    private static ExecutorService createExecutor(int threads, boolean virtualThreads) {
+        if (virtualThreads) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.err.println("Virtual threads are not available on this JDK, using platform threads");
+            }
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads,
+                runnable -> new Thread(runnable, "weather-server-" + threadNumber.incrementAndGet()));
+    }
+
+    private void respond(HttpExchange exchange, boolean current) throws IOException {
+        try {
+            requests.increment();
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, error("Only GET is supported"), null);
+                return;
+            }
+            String query = exchange.getRequestURI().getRawQuery();
+            String zip = parameter(query, "zip");
+            String country = parameter(query, "country");
+            if (zip == null) {
+                send(exchange, 400, error("The zip parameter is required"), null);
+                return;
+            }
+            country = country == null ? "us" : country.toLowerCase();
+            if (!WeatherAPI.isCountryCode(country)) {
+                send(exchange, 400, error("The country parameter must be a two letter country code"), null);
+                return;
+            }
+
+            Location location;
+            boolean stale = false;
+            try {
+                location = get(zip, country);
+            } catch (InvalidZipCodeException | FileNotFoundException e) {
+                send(exchange, 404, error("Unknown zip code " + zip + ", " + country), null);
+                return;
+            } catch (IOException | NetworkConnectionException e) {
+                location = locations.get(key(zip, country));
+                if (location == null) {
+                    if (e instanceof QuotaExceededException) {
+                        exchange.getResponseHeaders().set("Retry-After", Long.toString(
+                                TimeUnit.MILLISECONDS.toSeconds(((QuotaExceededException) e).getRetryAfterMillis()) + 1));
+                        send(exchange, 429, error("API call budget used up"), null);
+                    } else {
+                        send(exchange, e instanceof NetworkConnectionException ? 503 : 502,
+                                error("Weather service unavailable"), null);
+                    }
+                    return;
+                }
+                stale = true;
+            }
+
+            exchange.getResponseHeaders().set("ETag", location.etag);
+            exchange.getResponseHeaders().set("Age", Long.toString(
+                    TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - location.fetchedAtMillis)));
+            if (stale) {
+                exchange.getResponseHeaders().set("Warning", "110 - \"Response is Stale\"");
+            }
+            if (location.etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            send(exchange, 200, current ? location.current : location.forecast, location);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            send(exchange, 500, error("Internal error"), null);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Method returns the weather of a location, refreshing it first when its scheduler says new data is due.
+     * Concurrent requests for a location that is being refreshed share that refresh.
+     */
+    private Location get(String zip, String country) throws IOException, NetworkConnectionException {
+        String key = key(zip, country);
+        Location location = locations.get(key);
+        if (isCurrent(location)) {
+            return location;
+        }
+        if (location == null) {
+            rethrowRecentFailure(key);
+        }
+        try {
+            return refreshes.execute(key, () -> refresh(key, zip, country));
+        } catch (IOException | NetworkConnectionException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    private Location refresh(String key, String zip, String country) throws IOException, NetworkConnectionException {
+        Location previous = locations.get(key);
+        // another caller may have refreshed the location while this one waited to run
+        if (isCurrent(previous)) {
+            return previous;
+        }
+        Failure failure = null;
+        if (previous == null) {
+            rethrowRecentFailure(key);
+            failure = failures.get(key);
+        }
+        RefreshScheduler scheduler = previous != null ? previous.scheduler
+                : failure != null ? failure.scheduler : new RefreshScheduler();
+        WeatherAPI weatherAPI = new WeatherAPI();
+        weatherAPI.setZipCode(zip);
+        weatherAPI.setCountryCode(country);
+        weatherAPI.setQuotaMode(ApiQuota.Mode.CACHED_FALLBACK);
+        try {
+            // the scheduler expects new data, a response cached by the last refresh must not answer it
+            weatherAPI.refresh(scheduler.hasRefreshed());
+        } catch (IOException | NetworkConnectionException e) {
+            scheduler.failed(System.currentTimeMillis());
+            if (previous == null) {
+                failures.put(key, new Failure(e, scheduler));
+            }
+            throw e;
+        }
+        upstreamRefreshes.increment();
+        WeatherSnapshot snapshot = weatherAPI.getSnapshot();
+        scheduler.refreshed(snapshot, System.currentTimeMillis());
+        Location location = new Location(currentJson(snapshot), forecastJson(snapshot),
+                "\"" + snapshot.getCurrent().getLastUpdate() + "-" + snapshot.getFirstForecastSlot() + "-"
+                        + snapshot.getUnits() + "\"",
+                snapshot.getUnits(), snapshot.getFetchedAt() * 1000, scheduler);
+        locations.put(key, location);
+        failures.remove(key);
+        return location;
+    }
+
+    /**
+     * Method throws the error of the last refresh of a location without weather, until its next attempt is due.
+     */
+    private void rethrowRecentFailure(String key) throws IOException, NetworkConnectionException {
+        Failure failure = failures.get(key);
+        if (failure != null && !failure.scheduler.isDue(System.currentTimeMillis())) {
+            failure.rethrow();
+        }
+    }
+
+    /**
+     * Method returns true if a location can be served without a refresh: no new data is expected yet and it was
+     * fetched in the units currently configured.
+     */
+    private static boolean isCurrent(Location location) {
+        return location != null && !location.scheduler.isDue(System.currentTimeMillis())
+                && location.units.equals(ConfigService.getInstance().get().getUnits());
+    }
+
+    /**
+     * Method returns the number of requests received and the number of refreshes that called the API.
+     */
+    long getRequestCount() {
+        return requests.sum();
+    }
+
+    long getUpstreamRefreshCount() {
+        return upstreamRefreshes.sum();
+    }
+
+    static byte[] currentJson(WeatherSnapshot snapshot) {
+        CurrentConditions current = snapshot.getCurrent();
+        StringBuilder json = new StringBuilder(384);
+        location(json, snapshot);
+        json.append(",\"lastUpdate\":").append(current.getLastUpdate())
+                .append(",\"temperature\":").append(current.getTemperature())
+                .append(",\"feelsLike\":").append(current.getFeelsLike())
+                .append(",\"minTemperature\":").append(current.getMinTemperature())
+                .append(",\"maxTemperature\":").append(current.getMaxTemperature())
+                .append(",\"humidity\":").append(current.getHumidity())
+                .append(",\"pressure\":").append(current.getPressure())
+                .append(",\"windSpeed\":").append(current.getWindSpeed())
+                .append(",\"cloudiness\":").append(current.getCloudiness())
+                .append(",\"visibility\":").append(current.getVisibility())
+                .append(",\"sunrise\":").append(current.getSunrise())
+                .append(",\"sunset\":").append(current.getSunset())
+                .append(",\"condition\":");
+        string(json, current.getCondition().getDisplayName());
+        return json.append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] forecastJson(WeatherSnapshot snapshot) {
+        StringBuilder json = new StringBuilder(128 + snapshot.getForecastDayCount() * 160);
+        location(json, snapshot);
+        json.append(",\"days\":[");
+        for (int i = 0; i < snapshot.getForecastDayCount(); i++) {
+            DailyForecast day = snapshot.getForecastDay(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"date\":\"").append(LocalDate.ofEpochDay(day.getEpochDay())).append('"')
+                    .append(",\"minTemperature\":").append(day.getMinTemperature())
+                    .append(",\"maxTemperature\":").append(day.getMaxTemperature())
+                    .append(",\"precipitationChance\":").append(day.getPrecipitationChance())
+                    .append(",\"humidity\":").append(day.getHumidity())
+                    .append(",\"pressure\":").append(day.getPressure())
+                    .append(",\"condition\":");
+            string(json, day.getCondition().getDisplayName());
+            json.append('}');
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void location(StringBuilder json, WeatherSnapshot snapshot) {
+        json.append("{\"zip\":");
+        string(json, snapshot.getZipCode());
+        json.append(",\"country\":");
+        string(json, snapshot.getCountryCode());
+        json.append(",\"city\":");
+        string(json, snapshot.getCurrent().getCityName());
+        json.append(",\"fetchedAt\":").append(snapshot.getFetchedAt())
+                .append(",\"timezoneOffset\":").append(snapshot.getTimezoneOffset())
+                .append(",\"units\":");
+        string(json, snapshot.getUnits());
+    }
+
+    private static void string(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    private static byte[] error(String message) {
+        StringBuilder json = new StringBuilder(message.length() + 16).append("{\"error\":");
+        string(json, message);
+        return json.append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body, Location location) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (location != null) {
+            long maxAge = Math.max(0, TimeUnit.MILLISECONDS.toSeconds(
+                    location.scheduler.getDueAtMillis() - System.currentTimeMillis()));
+            exchange.getResponseHeaders().set("Cache-Control", "max-age=" + maxAge);
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Method returns the decoded value of a query parameter, or null if the query does not have it.
+     */
+    private static String parameter(String query, String name) throws IOException {
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0 && pair.substring(0, separator).equals(name)) {
+                String value = URLDecoder.decode(pair.substring(separator + 1), "UTF-8").trim();
+                return value.isEmpty() ? null : value;
+            }
+        }
+        return null;
+    }
+
+    private static String key(String zip, String country) {
+        return zip + '|' + country;
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Class holds everything fetched for a location in one refresh: the current conditions and the daily forecast.
+ * Instances are immutable so a snapshot can be handed to other threads and replaced as a whole, a reader
+ * never sees current conditions from one refresh mixed with a forecast from another.
+ */
+public final class WeatherSnapshot {
+    private static final int SECONDS_PER_DAY = 86_400;
+    private final String zipCode;
+    private final String countryCode;
+    private final String units;
+    private final long fetchedAt;
+    private final int timezoneOffset;
+    private final long firstForecastSlot;
+    private final CurrentConditions current;
+    private final DailyForecast[] forecast;
+
+    WeatherSnapshot(String zipCode, String countryCode, String units, long fetchedAt, int timezoneOffset,
+                    long firstForecastSlot, CurrentConditions current, DailyForecast[] forecast) {
+        this.zipCode = zipCode;
+        this.countryCode = countryCode;
+        this.units = units;
+        this.fetchedAt = fetchedAt;
+        this.timezoneOffset = timezoneOffset;
+        this.firstForecastSlot = firstForecastSlot;
+        this.current = current;
+        this.forecast = forecast.clone();
+    }
+
+    public String getZipCode() {
+        return zipCode;
+    }
+
+    public String getCountryCode() {
+        return countryCode;
+    }
+
+    /**
+     * Method returns the units the values were fetched in, "imperial", "metric" or "standard".
+     */
+    public String getUnits() {
+        return units;
+    }
+
+    /**
+     * Method returns when the data was fetched, in epoch seconds.
+     */
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    /**
+     * Method returns the offset of the location from UTC in seconds.
+     */
+    public int getTimezoneOffset() {
+        return timezoneOffset;
+    }
+
+    /**
+     * Method returns the start of the first 3 hour slot of the forecast in epoch seconds, 0 if it is not known.
+     * The API drops a slot from the forecast once it has passed, so this also tells when the forecast changes next.
+     */
+    public long getFirstForecastSlot() {
+        return firstForecastSlot;
+    }
+
+    public CurrentConditions getCurrent() {
+        return current;
+    }
+
+    /**
+     * Method returns the number of days in the forecast.
+     */
+    public int getForecastDayCount() {
+        return forecast.length;
+    }
+
+    /**
+     * Method returns a day of the forecast by position, position 0 is the first day the forecast covers.
+     */
+    public DailyForecast getForecastDay(int index) {
+        return forecast[index];
+    }
+
+    /**
+     * Method returns the forecast for a day counted from the current local date of the location, so the
+     * days stay correct when the snapshot is displayed past midnight.
+     * @param daysFromToday 0 for today, 1 for tomorrow and so on.
+     * @param nowEpochSeconds Current time.
+     * @return The forecast of the day, or null if the forecast does not cover it.
+     */
+    public DailyForecast getForecastForDay(int daysFromToday, long nowEpochSeconds) {
+        long epochDay = Math.floorDiv(nowEpochSeconds + timezoneOffset, SECONDS_PER_DAY) + daysFromToday;
+        for (DailyForecast day : forecast) {
+            if (day.getEpochDay() == epochDay) {
+                return day;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,184 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class hands every snapshot fetched by any WeatherAPI instance to the listeners subscribed to its location.
+ *
+ * Publishing never waits for a listener. Each subscription has a mailbox holding only the newest snapshot it has
+ * not taken yet and runs its listener on its own executor. If a new snapshot arrives before the listener took the
+ * last one, the new one replaces it, so a slow listener gets fewer updates instead of a growing backlog. The
+ * comparison with the snapshot the listener saw before happens when the update is delivered, off the fetch thread.
+ * Locations without subscribers cost a single map lookup.
+ */
+final class WeatherSubscriptions {
+    private static final WeatherSubscriptions INSTANCE = new WeatherSubscriptions();
+    private static final ExecutorService listenerExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "weather-listener");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ConcurrentMap<String, Topic> topics = new ConcurrentHashMap<>();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Method returns the subscriptions of the whole process.
+     */
+    static WeatherSubscriptions getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Method subscribes a listener to a location. If the location has been fetched since it last had
+     * subscribers, the listener receives that snapshot right away as its first update.
+     * @param executor Executor that runs the listener, for example Platform::runLater for a GUI. It must not block.
+     * @return The subscription, close it to stop receiving updates.
+     */
+    Subscription subscribe(String zip, String country, WeatherListener listener, Executor executor) {
+        String key = key(zip, country);
+        Subscription subscription = new Subscription(key, listener, executor == null ? listenerExecutor : executor);
+        Topic topic = topics.compute(key, (k, existing) -> {
+            Topic target = existing == null ? new Topic() : existing;
+            target.subscriptions.add(subscription);
+            return target;
+        });
+        // read after adding, a snapshot published meanwhile has been offered already or is read here
+        WeatherSnapshot latest = topic.latest.get();
+        if (latest != null) {
+            subscription.offer(latest);
+        }
+        return subscription;
+    }
+
+    /**
+     * Method offers a new snapshot to the subscribers of its location. A snapshot older than the last one
+     * published for the location, from a refresh that finished late, is dropped.
+     */
+    void publish(WeatherSnapshot snapshot) {
+        Topic topic = topics.get(key(snapshot.getZipCode(), snapshot.getCountryCode()));
+        if (topic == null) {
+            return;
+        }
+        WeatherSnapshot latest;
+        do {
+            latest = topic.latest.get();
+            if (latest != null && isOlder(snapshot, latest)) {
+                return;
+            }
+        } while (!topic.latest.compareAndSet(latest, snapshot));
+        for (Subscription subscription : topic.subscriptions) {
+            subscription.offer(snapshot);
+        }
+    }
+
+    /**
+     * Method returns the number of updates handed to listeners.
+     */
+    long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    /**
+     * Method returns the number of snapshots replaced in a mailbox before their listener took them.
+     */
+    long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        topics.computeIfPresent(subscription.key, (k, topic) -> {
+            topic.subscriptions.remove(subscription);
+            return topic.subscriptions.isEmpty() ? null : topic;
+        });
+    }
+
+    private static boolean isOlder(WeatherSnapshot snapshot, WeatherSnapshot than) {
+        return snapshot.getCurrent().getLastUpdate() < than.getCurrent().getLastUpdate();
+    }
+
+    private static String key(String zip, String country) {
+        return zip.trim().toUpperCase() + '|' + country.toLowerCase();
+    }
+
+    /**
+     * Class holds the subscribers of one location and the last snapshot published for it.
+     */
+    private static final class Topic {
+        private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+        private final AtomicReference<WeatherSnapshot> latest = new AtomicReference<>();
+    }
+
+    /**
+     * Class is one listener's subscription to a location and its mailbox. At most one delivery per subscription
+     * is queued on its executor at a time, so calls of the listener never overlap.
+     */
+    final class Subscription implements AutoCloseable {
+        private final String key;
+        private final WeatherListener listener;
+        private final Executor executor;
+        private final AtomicReference<WeatherSnapshot> pending = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+        // only used by deliver(), which never runs concurrently with itself
+        private WeatherSnapshot seen;
+
+        private Subscription(String key, WeatherListener listener, Executor executor) {
+            this.key = key;
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        private void offer(WeatherSnapshot snapshot) {
+            if (pending.getAndSet(snapshot) != null) {
+                coalesced.increment();
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                executor.execute(this::deliver);
+            }
+        }
+
+        private void deliver() {
+            WeatherSnapshot snapshot = pending.getAndSet(null);
+            try {
+                if (snapshot != null && !closed && (seen == null || !isOlder(snapshot, seen))) {
+                    WeatherUpdate update = WeatherUpdate.of(seen, snapshot);
+                    seen = snapshot;
+                    if (update.hasChanges()) {
+                        delivered.increment();
+                        listener.weatherChanged(update);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // a failing listener keeps its subscription
+                e.printStackTrace();
+            } finally {
+                scheduled.set(false);
+                if (pending.get() != null) {
+                    schedule();
+                }
+            }
+        }
+
+        /**
+         * Method ends the subscription. An update already being delivered still completes.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            pending.set(null);
+            unsubscribe(this);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+import java.text.NumberFormat;
+
+/**
+ * Class builds the text shown in the weather panels of the GUI from a snapshot. It has no JavaFX dependencies
+ * so the text can be produced, and measured, without a running application.
+ */
+final class WeatherText {
+    private WeatherText() {
+    }
+
+    /**
+     * Method builds the text of the first panel.
+     * @param current Current conditions of the location.
+     * @param today Forecast of the current day, used for the chance of precipitation. Null late in the day when
+     *              the forecast already starts tomorrow, a dash is shown then.
+     */
+    static String formatCurrent(CurrentConditions current, DailyForecast today) {
+        return "Temperature: " + current.getTemperature() + "\u00B0" +
+                "\nPrecipitation: " + (today == null ? "-" : formatPrecipitation(today)) +
+                "\nHumidity: " + current.getHumidity() + "\u0025" +
+                "\nPressure: " + current.getPressure() + " mbar";
+    }
+
+    /**
+     * Method builds the text of a forecast panel.
+     * @param day Forecast of the day.
+     */
+    static String formatForecastDay(DailyForecast day) {
+        return "Temperature Max: " + day.getMaxTemperature() + "\u00B0" +
+                "\nTemperature Min: " + day.getMinTemperature() + "\u00B0" +
+                "\nPrecipitation: " + formatPrecipitation(day) +
+                "\nHumidity: " + day.getHumidity() + "\u0025" +
+                "\nPressure: " + day.getPressure() + " mbar";
+    }
+
+    /**
+     * Method formats a chance of precipitation as a percentage with one decimal.
+     */
+    static String formatPrecipitation(DailyForecast day) {
+        if (day == null) {
+            return null;
+        }
+        NumberFormat defaultFormat = NumberFormat.getPercentInstance();
+        defaultFormat.setMinimumFractionDigits(1);
+        return defaultFormat.format(day.getPrecipitationChance());
+    }
+
+    /**
+     * Method formats how long ago data was fetched, for example "25 min ago" or "3 days ago".
+     * @param seconds Age of the data in seconds.
+     */
+    static String formatAge(long seconds) {
+        if (seconds < 60) {
+            return "just now";
+        } else if (seconds < 3600) {
+            return seconds / 60 + " min ago";
+        } else if (seconds < 2 * 86_400) {
+            return seconds / 3600 + " h ago";
+        }
+        return seconds / 86_400 + " days ago";
+    }
+}
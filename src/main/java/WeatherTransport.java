@@ -0,0 +1,235 @@
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Class performs the HTTP requests to the Open Weather Map API. Responses are requested gzip compressed,
+ * every request has a connect and a read timeout so a hung server cannot block the caller forever, and the
+ * body is always read to the end so the JDK can keep the connection alive and reuse it for the next request.
+ * When validators from an earlier response are given the request is made conditional, an unchanged resource
+ * is then answered with 304 and no body.
+ */
+class WeatherTransport {
+    private volatile int connectTimeoutMillis = 5_000;
+    private volatile int readTimeoutMillis = 10_000;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong notModifiedCount = new AtomicLong();
+    private final AtomicLong totalWireBytes = new AtomicLong();
+
+    /**
+     * Class holds the outcome of one request together with the bytes received and the time to first byte.
+     */
+    static final class Response {
+        private final int status;
+        private final byte[] body;
+        private final String etag;
+        private final String lastModified;
+        private final long wireBytes;
+        private final long timeToFirstByteNanos;
+        private final long readNanos;
+
+        Response(int status, byte[] body, String etag, String lastModified, long wireBytes,
+                 long timeToFirstByteNanos, long readNanos) {
+            this.status = status;
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.wireBytes = wireBytes;
+            this.timeToFirstByteNanos = timeToFirstByteNanos;
+            this.readNanos = readNanos;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        /**
+         * Method returns true if the server answered a conditional request with 304, the body is then null.
+         */
+        boolean isNotModified() {
+            return status == HttpURLConnection.HTTP_NOT_MODIFIED;
+        }
+
+        /**
+         * Method returns the decompressed body.
+         */
+        byte[] getBody() {
+            return body;
+        }
+
+        String getEtag() {
+            return etag;
+        }
+
+        String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Method returns the number of body bytes received over the network, before decompression.
+         */
+        long getWireBytes() {
+            return wireBytes;
+        }
+
+        /**
+         * Method returns the time from sending the request until the status line was received.
+         */
+        long getTimeToFirstByteNanos() {
+            return timeToFirstByteNanos;
+        }
+
+        /**
+         * Method returns the time it took to read the body after the status line was received.
+         */
+        long getReadNanos() {
+            return readNanos;
+        }
+    }
+
+    /**
+     * Method changes the timeouts of following requests.
+     * @param connectTimeoutMillis Longest time to wait for the connection to be established.
+     * @param readTimeoutMillis Longest time to wait for data once connected.
+     */
+    void setTimeouts(int connectTimeoutMillis, int readTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    /**
+     * Method sends a GET request.
+     * @param address URL to request.
+     * @param etag ETag of the cached copy, or null.
+     * @param lastModified Last-Modified value of the cached copy, or null.
+     * @return The response, with status 200 or 304.
+     * @throws FileNotFoundException if the server answered 404, for example for an unknown zip code.
+     * @throws IOException if the request failed, timed out or the server answered with another error.
+     */
+    Response get(String address, String etag, String lastModified) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(address).openConnection();
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        connection.setRequestProperty("Connection", "keep-alive");
+        if (etag != null) {
+            connection.setRequestProperty("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            connection.setRequestProperty("If-Modified-Since", lastModified);
+        }
+
+        long start = System.nanoTime();
+        int status = connection.getResponseCode();
+        long timeToFirstByte = System.nanoTime() - start;
+        requestCount.incrementAndGet();
+
+        if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            notModifiedCount.incrementAndGet();
+            drain(connection.getInputStream());
+            return new Response(status, null, etag, lastModified, 0, timeToFirstByte, 0);
+        }
+        if (status != HttpURLConnection.HTTP_OK) {
+            drain(connection.getErrorStream());
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new FileNotFoundException(address.substring(0, address.indexOf('?')) + " returned 404");
+            }
+            throw new IOException("Server returned HTTP " + status);
+        }
+
+        long readStart = System.nanoTime();
+        CountingInputStream wire = new CountingInputStream(connection.getInputStream());
+        byte[] body;
+        try (InputStream in = "gzip".equalsIgnoreCase(connection.getContentEncoding())
+                ? new GZIPInputStream(wire) : wire) {
+            body = readFully(in);
+        }
+        long readTime = System.nanoTime() - readStart;
+        totalWireBytes.addAndGet(wire.count);
+        return new Response(status, body, connection.getHeaderField("ETag"),
+                connection.getHeaderField("Last-Modified"), wire.count, timeToFirstByte, readTime);
+    }
+
+    /**
+     * Method returns the number of requests sent so far.
+     */
+    long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Method returns the number of requests answered with 304 Not Modified.
+     */
+    long getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    /**
+     * Method returns the number of body bytes received over the network by all requests.
+     */
+    long getTotalWireBytes() {
+        return totalWireBytes.get();
+    }
+
+    /**
+     * Method reads a stream to the end and closes it so the connection can go back to the keep-alive pool.
+     */
+    private static void drain(InputStream in) {
+        if (in == null) {
+            return;
+        }
+        try (InputStream stream = in) {
+            byte[] buffer = new byte[1024];
+            while (stream.read(buffer) != -1) {
+                // discard
+            }
+        } catch (IOException e) {
+            // the connection is simply not reused
+        }
+    }
+
+    static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(8192);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+
+    /**
+     * Class counts the bytes read from the network before they are decompressed.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
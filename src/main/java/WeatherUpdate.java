@@ -0,0 +1,127 @@
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Class is what a WeatherListener receives when new weather for its location has been fetched: the new snapshot,
+ * the snapshot the listener saw before, and which values differ between the two. A listener only needs to look
+ * at the fields that changed. The first update a listener receives has no previous snapshot and every field set.
+ *
+ * Instances are immutable. A listener that falls behind receives one update from the last snapshot it saw to the
+ * newest one, so a value that changed and changed back in between is not reported.
+ */
+public final class WeatherUpdate {
+    private final WeatherSnapshot previous;
+    private final WeatherSnapshot snapshot;
+    private final int changes;
+
+    /**
+     * Enum lists the values an update can report as changed.
+     */
+    public enum Field {
+        TEMPERATURE, FEELS_LIKE, MIN_TEMPERATURE, MAX_TEMPERATURE, HUMIDITY, PRESSURE, WIND_SPEED, CLOUDINESS,
+        VISIBILITY, CONDITION, SUNRISE, SUNSET, CITY_NAME, OBSERVATION_TIME, FORECAST;
+
+        private final int bit = 1 << ordinal();
+    }
+
+    private static final int ALL = (1 << Field.values().length) - 1;
+
+    private WeatherUpdate(WeatherSnapshot previous, WeatherSnapshot snapshot, int changes) {
+        this.previous = previous;
+        this.snapshot = snapshot;
+        this.changes = changes;
+    }
+
+    /**
+     * Method creates the update from one snapshot to the next.
+     * @param previous Snapshot the listener has seen, null if it has seen none.
+     * @param snapshot New snapshot.
+     */
+    static WeatherUpdate of(WeatherSnapshot previous, WeatherSnapshot snapshot) {
+        return new WeatherUpdate(previous, snapshot, previous == null ? ALL : compare(previous, snapshot));
+    }
+
+    public WeatherSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Method returns the snapshot the listener received before, or null if this is its first update.
+     */
+    public WeatherSnapshot getPrevious() {
+        return previous;
+    }
+
+    public boolean hasChanged(Field field) {
+        return (changes & field.bit) != 0;
+    }
+
+    /**
+     * Method returns true if any value changed.
+     */
+    public boolean hasChanges() {
+        return changes != 0;
+    }
+
+    public Set<Field> getChangedFields() {
+        EnumSet<Field> fields = EnumSet.noneOf(Field.class);
+        for (Field field : Field.values()) {
+            if (hasChanged(field)) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private static int compare(WeatherSnapshot previous, WeatherSnapshot snapshot) {
+        CurrentConditions before = previous.getCurrent(), after = snapshot.getCurrent();
+        int changes = 0;
+        changes |= differs(before.getTemperature(), after.getTemperature(), Field.TEMPERATURE);
+        changes |= differs(before.getFeelsLike(), after.getFeelsLike(), Field.FEELS_LIKE);
+        changes |= differs(before.getMinTemperature(), after.getMinTemperature(), Field.MIN_TEMPERATURE);
+        changes |= differs(before.getMaxTemperature(), after.getMaxTemperature(), Field.MAX_TEMPERATURE);
+        changes |= differs(before.getHumidity(), after.getHumidity(), Field.HUMIDITY);
+        changes |= differs(before.getPressure(), after.getPressure(), Field.PRESSURE);
+        changes |= differs(before.getWindSpeed(), after.getWindSpeed(), Field.WIND_SPEED);
+        changes |= differs(before.getCloudiness(), after.getCloudiness(), Field.CLOUDINESS);
+        changes |= differs(before.getVisibility(), after.getVisibility(), Field.VISIBILITY);
+        changes |= before.getCondition() != after.getCondition() ? Field.CONDITION.bit : 0;
+        changes |= differs(before.getSunrise(), after.getSunrise(), Field.SUNRISE);
+        changes |= differs(before.getSunset(), after.getSunset(), Field.SUNSET);
+        changes |= equal(before.getCityName(), after.getCityName()) ? 0 : Field.CITY_NAME.bit;
+        changes |= differs(before.getLastUpdate(), after.getLastUpdate(), Field.OBSERVATION_TIME);
+        changes |= sameForecast(previous, snapshot) ? 0 : Field.FORECAST.bit;
+        return changes;
+    }
+
+    private static boolean sameForecast(WeatherSnapshot previous, WeatherSnapshot snapshot) {
+        if (previous.getForecastDayCount() != snapshot.getForecastDayCount()) {
+            return false;
+        }
+        for (int i = 0; i < snapshot.getForecastDayCount(); i++) {
+            DailyForecast before = previous.getForecastDay(i), after = snapshot.getForecastDay(i);
+            if (before.getEpochDay() != after.getEpochDay()
+                    || Float.compare(before.getMinTemperature(), after.getMinTemperature()) != 0
+                    || Float.compare(before.getMaxTemperature(), after.getMaxTemperature()) != 0
+                    || Float.compare(before.getPrecipitationChance(), after.getPrecipitationChance()) != 0
+                    || before.getHumidity() != after.getHumidity()
+                    || before.getPressure() != after.getPressure()
+                    || before.getCondition() != after.getCondition()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int differs(float before, float after, Field field) {
+        return Float.compare(before, after) != 0 ? field.bit : 0;
+    }
+
+    private static int differs(long before, long after, Field field) {
+        return before != after ? field.bit : 0;
+    }
+
+    private static boolean equal(String before, String after) {
+        return before == null ? after == null : before.equals(after);
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * Interface implemented by the classes that collect weather values while a response is parsed.
+ */
+interface WeatherXmlHandler {
+    /**
+     * Method is called for every start element.
+     * @param name Element name, as written in the response.
+     * @param attributes Attributes of the element, only read the ones that are needed.
+     */
+    void startElement(String name, XmlAttributes attributes);
+
+    /**
+     * Method is called for every end element.
+     * @param name Element name, as written in the response.
+     */
+    default void endElement(String name) {
+    }
+
+    /**
+     * Method is called for text content. The array is owned by the parser and only valid during the call.
+     */
+    default void characters(char[] ch, int start, int length) {
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * Enum lists the formats the Open Weather Map API can answer in. JSON responses are smaller than the XML
+ * responses of the same endpoints and are cheaper to tokenize.
+ */
+enum WireFormat {
+    XML("&mode=xml", "xml"),
+    JSON("", "json");
+
+    private final String modeParameter;
+    private final String extension;
+
+    WireFormat(String modeParameter, String extension) {
+        this.modeParameter = modeParameter;
+        this.extension = extension;
+    }
+
+    /**
+     * Method returns the query parameter that selects this format, JSON is the default of the API and needs
+     * no parameter.
+     */
+    String getModeParameter() {
+        return modeParameter;
+    }
+
+    /**
+     * Method returns the file extension used for cached responses in this format.
+     */
+    String getExtension() {
+        return extension;
+    }
+}
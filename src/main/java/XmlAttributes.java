@@ -0,0 +1,6 @@
+/**
+ * Interface for reading single attributes of the current element without copying the others.
+ */
+interface XmlAttributes {
+    String getValue(String name);
+}